@@ -3,8 +3,10 @@ package org.example;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MathlaApplication {
     public static void main(String[] args) {
         SpringApplication.run(MathlaApplication.class, args);
@@ -1,6 +1,7 @@
 package org.example.api;
 
 import org.example.api.dto.AssignStudentsRequest;
+import org.example.api.dto.AssignmentPurgeResponse;
 import org.example.api.dto.AssigneeDto;
 import org.example.api.dto.AssignmentResponse;
 import org.example.api.dto.CreateAssignmentRequest;
@@ -8,14 +9,23 @@ import org.example.api.dto.UpdateAssignmentRequest;
 import org.example.api.dto.UpdateAssigneeDueRequest;
 import org.example.model.*;
 import org.example.repo.*;
+import org.example.service.AssignmentPurger;
+import org.example.service.ContentCache;
+import org.example.service.DeadlineSweeper;
+import org.example.service.ProblemBodies;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.net.URI;
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/assignments")
@@ -26,19 +36,45 @@ public class AssignmentController {
     private final AssignmentStudentRepository assignRepo;
     private final SubmissionRepository submissionRepo;
     private final ProblemRepository problemRepo;
+    private final DeadlineSweeper deadlines;
+    private final GroupRepository groupRepo;
+    private final AssignmentGroupRepository assignmentGroupRepo;
+    private final ContentCache contentCache;
+    private final AssignmentPurger purger;
+    private final AssignmentPurgeRepository purgeRepo;
+    private final ProblemBodies problemBodies;
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int CATALOG_PAGE = 50;
+    private static final int CATALOG_MAX_PAGE = 500;
+    private static final int ASSIGN_BATCH = 1000; // uczniów na jeden INSERT
 
     public AssignmentController(
             AssignmentRepository assignmentRepo,
             UserRepository userRepo,
             AssignmentStudentRepository assignRepo,
             SubmissionRepository submissionRepo,
-            ProblemRepository problemRepo
+            ProblemRepository problemRepo,
+            DeadlineSweeper deadlines,
+            GroupRepository groupRepo,
+            AssignmentGroupRepository assignmentGroupRepo,
+            ContentCache contentCache,
+            AssignmentPurger purger,
+            AssignmentPurgeRepository purgeRepo,
+            ProblemBodies problemBodies
     ) {
         this.assignmentRepo = assignmentRepo;
         this.userRepo = userRepo;
         this.assignRepo = assignRepo;
         this.submissionRepo = submissionRepo;
         this.problemRepo = problemRepo;
+        this.deadlines = deadlines;
+        this.groupRepo = groupRepo;
+        this.assignmentGroupRepo = assignmentGroupRepo;
+        this.contentCache = contentCache;
+        this.purger = purger;
+        this.purgeRepo = purgeRepo;
+        this.problemBodies = problemBodies;
     }
 
     /* ===================== tworzenie/listy ===================== */
@@ -59,110 +95,225 @@ public class AssignmentController {
             a.setDueAt(OffsetDateTime.parse(req.dueAt()));
         }
         assignmentRepo.save(a);
+        deadlines.schedule(a.getDueAt());
+        contentCache.invalidateAssignment(a.getId());
 
         return ResponseEntity.created(URI.create("/api/assignments/" + a.getId()))
-                .body(toResponse(a));
+                .body(get(a.getId()));
     }
 
     @GetMapping
     public List<AssignmentResponse> list(@RequestParam(required = false) Long teacherId) {
-        List<Assignment> list = (teacherId == null)
-                ? assignmentRepo.findAll()
-                : assignmentRepo.findAll().stream()
-                .filter(a -> a.getTeacher().getId().equals(teacherId))
-                .collect(Collectors.toList());
-        return list.stream().map(this::toResponse).toList();
+        return catalogRows(null, teacherId, null, null, null, null, 0L, Pageable.unpaged()).stream()
+                .map(this::toResponse).toList();
     }
 
+    // KATALOG: filtry po stronie bazy + keyset po id ASC (?cursor=<ostatnie id>&limit=N → X-Next-Cursor).
+    // studentId → widok ucznia (tylko przydzielone, termin efektywny, studentDueAt).
+    @GetMapping("/catalog")
+    public ResponseEntity<List<AssignmentResponse>> catalog(
+            @RequestParam(required = false) Long teacherId,
+            @RequestParam(required = false) Long studentId,
+            @RequestParam(required = false) String dueFrom,
+            @RequestParam(required = false) String dueTo,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Boolean hasDeadline,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit) {
+        int pageSize = limit == null ? CATALOG_PAGE : Math.max(1, Math.min(limit, CATALOG_MAX_PAGE));
+        var rows = catalogRows(studentId, teacherId, parseDue(dueFrom), parseDue(dueTo), hasDeadline, q,
+                cursor == null ? 0L : cursor, PageRequest.of(0, pageSize + 1));
+
+        var res = ResponseEntity.ok();
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            res.header(NEXT_CURSOR_HEADER, String.valueOf(rows.get(pageSize - 1).id()));
+        }
+        return res.body(rows.stream().map(this::toResponse).toList());
+    }
+
+    private List<AssignmentRow> catalogRows(Long studentId, Long teacherId, OffsetDateTime dueFrom, OffsetDateTime dueTo,
+                                            Boolean hasDeadline, String q, long after, Pageable page) {
+        String title = titlePattern(q);
+        return studentId != null
+                ? assignmentRepo.findCatalogForStudent(studentId, after, teacherId, dueFrom, dueTo, hasDeadline, title, page)
+                : assignmentRepo.findCatalog(after, teacherId, dueFrom, dueTo, hasDeadline, title, page);
+    }
+
+    // fraza → wzorzec LIKE "%fraza%" (małe litery, znaki specjalne LIKE dosłownie)
+    private static String titlePattern(String q) {
+        if (q == null || q.isBlank()) return null;
+        String esc = q.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + esc + "%";
+    }
+
+    private static OffsetDateTime parseDue(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        try {
+            return OffsetDateTime.parse(raw);
+        } catch (DateTimeParseException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "INVALID_DATE");
+        }
+    }
+
+    // ETag/Last-Modified + gotowe (gzip) bajty z ContentCache; 304 bez zapytania do bazy
     @GetMapping("/{id}")
-    public AssignmentResponse get(@PathVariable Long id) {
-        Assignment a = assignmentRepo.findById(id)
+    public ResponseEntity<byte[]> getCached(@PathVariable Long id, @RequestHeader HttpHeaders headers) {
+        return contentCache.serve(ContentCache.ASSIGNMENT + id, headers, () -> {
+            var row = findRow(id);
+            return new ContentCache.Loaded(toResponse(row), row.lastModified());
+        });
+    }
+
+    private AssignmentResponse get(Long id) {
+        return toResponse(findRow(id));
+    }
+
+    private AssignmentRow findRow(Long id) {
+        return assignmentRepo.findRowById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Assignment not found"));
-        return toResponse(a);
     }
 
     /* ===================== przydziały / terminy ===================== */
 
-    // kto ma to zadanie – z terminami per-uczeń
+    // kto ma to zadanie – z terminami z przydziału (per-uczeń albo grupowy)
     @GetMapping("/{id}/assignees")
     public List<AssigneeDto> assignees(@PathVariable Long id) {
-        return assignRepo.findByAssignment_Id(id)
-                .stream()
-                .map(link -> AssigneeDto.from(link.getStudent(), link.getDueAt()))
+        if (!assignmentRepo.existsById(id)) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "ASSIGNMENT_NOT_FOUND");
+        return assignRepo.findAssigneeRows(id).stream()
+                .map(r -> {
+                    var due = SqlValues.timestamp(r[3]);
+                    return new AssigneeDto(((Number) r[0]).longValue(), (String) r[1], (String) r[2],
+                            due == null ? null : due.toString());
+                })
                 .toList();
     }
 
-    // przydział zadania uczniom (z opcjonalnym terminem dueAt)
+    // przydział zadania uczniom i/lub całym grupom (z opcjonalnym terminem dueAt)
+    // Grupa → jeden wiersz assignment_groups razem z terminem (członkowie, także przyszli, rozwiązywani w zapytaniach).
+    // Wiersze per uczeń tylko dla wskazanych uczniów. Zbiorczo: role jednym IN, linki paczkami
+    // INSERT ... ON CONFLICT DO NOTHING.
     @PostMapping("/{id}/students")
     @Transactional
     public ResponseEntity<Map<String, Object>> assignToStudents(
             @PathVariable Long id,
             @RequestBody AssignStudentsRequest req) {
 
-        var assignment = assignmentRepo.findById(id).orElseThrow();
+        if (!assignmentRepo.existsById(id)) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "ASSIGNMENT_NOT_FOUND");
         OffsetDateTime due = (req.dueAt() != null && !req.dueAt().isBlank())
                 ? OffsetDateTime.parse(req.dueAt())
                 : null;
 
-        List<Long> dodani = new ArrayList<>();
+        // kolejność jak w żądaniu, bez powtórzeń
+        Set<Long> requested = new LinkedHashSet<>();
+        if (req.studentIds() != null) req.studentIds().stream().filter(Objects::nonNull).forEach(requested::add);
+
+        List<Long> brakGrup = new ArrayList<>();
+        List<Long> grupy = new ArrayList<>();
+        List<Long> grupyDuplikaty = new ArrayList<>();
+        if (req.groupIds() != null && !req.groupIds().isEmpty()) {
+            var groupIds = req.groupIds().stream().filter(Objects::nonNull).distinct().toList();
+            List<Long> known = new ArrayList<>();
+            Set<Long> found = new HashSet<>();
+            groupRepo.findAllById(groupIds).forEach(g -> found.add(g.getId()));
+            for (Long g : groupIds) (found.contains(g) ? known : brakGrup).add(g);
+
+            Set<Long> added = new HashSet<>(known.isEmpty() ? List.of()
+                    : assignmentGroupRepo.insertMissing(id, SqlArrays.bigints(known), due));
+            for (Long g : known) (added.contains(g) ? grupy : grupyDuplikaty).add(g);
+        }
+
+        Map<Long, UserRole> roles = new HashMap<>();
+        for (Object[] r : userRepo.findRoles(requested)) roles.put((Long) r[0], (UserRole) r[1]);
+
         List<Long> brak = new ArrayList<>();
         List<Long> zlaRola = new ArrayList<>();
-        List<Long> duplikaty = new ArrayList<>();
+        List<Long> students = new ArrayList<>();
+        for (Long sid : requested) {
+            UserRole role = roles.get(sid);
+            if (role == null) brak.add(sid);
+            else if (role != UserRole.STUDENT) zlaRola.add(sid);
+            else students.add(sid);
+        }
 
-        for (Long sid : req.studentIds()) {
-            var uOpt = userRepo.findById(sid);
-            if (uOpt.isEmpty()) { brak.add(sid); continue; }
-            var u = uOpt.get();
-            if (u.getRole() != UserRole.STUDENT) { zlaRola.add(sid); continue; }
-            if (assignRepo.existsByAssignment_IdAndStudent_Id(id, sid)) { duplikaty.add(sid); continue; }
-
-            var link = new AssignmentStudent();
-            link.setAssignment(assignment);
-            link.setStudent(u);
-            link.setDueAt(due);
-            assignRepo.save(link);
-            dodani.add(sid);
+        Set<Long> inserted = new HashSet<>();
+        for (int i = 0; i < students.size(); i += ASSIGN_BATCH) {
+            var chunk = students.subList(i, Math.min(i + ASSIGN_BATCH, students.size()));
+            inserted.addAll(assignRepo.insertMissing(id, SqlArrays.bigints(chunk), due));
         }
+        List<Long> dodani = new ArrayList<>();
+        List<Long> duplikaty = new ArrayList<>();
+        for (Long sid : students) (inserted.contains(sid) ? dodani : duplikaty).add(sid);
+        deadlines.schedule(due);
+        contentCache.invalidateAssignees();
 
         return ResponseEntity.ok(Map.of(
-                "dodani", dodani, "brak", brak, "zlaRola", zlaRola, "duplikaty", duplikaty
+                "dodani", dodani, "brak", brak, "zlaRola", zlaRola, "duplikaty", duplikaty,
+                "grupy", grupy, "grupyDuplikaty", grupyDuplikaty, "brakGrup", brakGrup
         ));
     }
 
+    // grupy, którym przydzielono zadanie
+    @GetMapping("/{id}/groups")
+    public List<Map<String, Object>> assignedGroups(@PathVariable Long id) {
+        if (!assignmentRepo.existsById(id)) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "ASSIGNMENT_NOT_FOUND");
+        return assignmentGroupRepo.findGroupRows(id).stream()
+                .map(r -> Map.<String, Object>of("id", r.groupId(), "name", r.name(), "size", r.members()))
+                .toList();
+    }
+
+    // cofnięcie przydziału grupowego razem z terminem grupy (indywidualne wiersze i prace zostają)
+    @DeleteMapping("/{id}/groups/{groupId}")
+    public ResponseEntity<Void> unassignGroup(@PathVariable Long id, @PathVariable Long groupId) {
+        int n = assignmentGroupRepo.deleteByAssignment_IdAndGroup_Id(id, groupId);
+        if (n > 0) contentCache.invalidateAssignees();
+        return n > 0 ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
     // zmiana terminu dla jednego ucznia (np. „odesłanie do poprawy” z nowym deadlinem)
     @PutMapping("/{id}/students/{studentId}/due")
     @Transactional
     public ResponseEntity<Void> updateAssigneeDue(@PathVariable Long id,
                                                   @PathVariable Long studentId,
                                                   @RequestBody UpdateAssigneeDueRequest req) {
-        var links = assignRepo.findByAssignment_Id(id).stream()
-                .filter(l -> l.getStudent().getId().equals(studentId))
-                .toList();
-        if (links.isEmpty()) return ResponseEntity.notFound().build();
-
         OffsetDateTime due = (req.dueAt() == null || req.dueAt().isBlank())
                 ? null : OffsetDateTime.parse(req.dueAt());
-        for (var l : links) { l.setDueAt(due); }
-        assignRepo.saveAll(links);
+
+        var link = assignRepo.findByAssignment_IdAndStudent_Id(id, studentId).orElse(null);
+        if (link == null) {
+            // przydział przez grupę – termin indywidualny to dopiero teraz własny wiersz
+            if (!assignRepo.isAssigned(id, studentId)) return ResponseEntity.notFound().build();
+            link = new AssignmentStudent();
+            link.setAssignment(assignmentRepo.getReferenceById(id));
+            link.setStudent(userRepo.getReferenceById(studentId));
+        }
+        link.setDueAt(due);
+        assignRepo.save(link);
+        deadlines.schedule(due);
+        contentCache.invalidateAssignees(); // studentDueAt w liście ucznia
         return ResponseEntity.noContent().build();
     }
 
     // lista zadań przypisanych uczniowi – z terminem per-uczeń (studentDueAt)
     @GetMapping("/assigned")
-    public List<AssignmentResponse> assigned(@RequestParam Long studentId) {
-        var links = assignRepo.findByStudent_Id(studentId);
-        var ids = links.stream().map(l -> l.getAssignment().getId()).toList();
-        var aById = assignmentRepo.findAllById(ids).stream()
-                .collect(Collectors.toMap(Assignment::getId, x -> x));
-        return links.stream()
-                .map(l -> toResponseForStudent(aById.get(l.getAssignment().getId()), l.getDueAt()))
-                .toList();
+    public ResponseEntity<byte[]> assigned(@RequestParam Long studentId, @RequestHeader HttpHeaders headers) {
+        return contentCache.serve(ContentCache.ASSIGNED + studentId, headers, () -> {
+            var rows = catalogRows(studentId, null, null, null, null, null, 0L, Pageable.unpaged());
+            OffsetDateTime last = null;
+            for (var r : rows) {
+                var m = r.lastModified();
+                if (m != null && (last == null || m.isAfter(last))) last = m;
+            }
+            return new ContentCache.Loaded(rows.stream().map(this::toResponse).toList(),
+                    contentCache.assignedLastModified(last));
+        });
     }
 
     // legacy aliasy (jeśli używane gdzieś w UI)
     @GetMapping("/for-student/{studentId}")
-    public List<AssignmentResponse> assignmentsForStudent(@PathVariable Long studentId) {
-        return assigned(studentId);
+    public ResponseEntity<byte[]> assignmentsForStudent(@PathVariable Long studentId, @RequestHeader HttpHeaders headers) {
+        return assigned(studentId, headers);
     }
 
     // cofnięcie przydziału – tylko gdy brak ocenionej pracy
@@ -174,11 +325,16 @@ public class AssignmentController {
         if (hasGraded) {
             return ResponseEntity.status(409).build(); // po ocenie – blokujemy cofnięcie
         }
+        if (!assignRepo.existsByAssignment_IdAndStudent_Id(id, studentId) && assignRepo.isAssigned(id, studentId)) {
+            // ma zadanie tylko przez grupę – cofa się je przy grupie (DELETE /{id}/groups/{groupId})
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "ASSIGNED_VIA_GROUP");
+        }
 
         // usuń tylko nieocenione zgłoszenia (DRAFT/SUBMITTED)
         submissionRepo.deleteByAssignment_IdAndStudent_IdAndStatusNot(id, studentId, SubmissionStatus.GRADED);
 
         int n = assignRepo.deleteByAssignment_IdAndStudent_Id(id, studentId);
+        if (n > 0) contentCache.invalidateAssignees();
         return n > 0 ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
@@ -198,6 +354,7 @@ public class AssignmentController {
             a.setDueAt(null);
         }
         assignmentRepo.save(a);
+        deadlines.schedule(a.getDueAt());
 
         boolean hasProblemChange = (req.problemContent() != null) || (req.problemFormat() != null);
         if (hasProblemChange) {
@@ -209,7 +366,7 @@ public class AssignmentController {
                         return np;
                     });
 
-            if (req.problemContent() != null) p.setContent(req.problemContent());
+            if (req.problemContent() != null) p.setBody(problemBodies.intern(req.problemContent()));
 
             if (req.problemFormat() != null) {
                 try { p.setFormat(ProblemFormat.valueOf(req.problemFormat())); }
@@ -218,47 +375,44 @@ public class AssignmentController {
             if (p.getFormat() == null) p.setFormat(ProblemFormat.MARKDOWN_TEX);
             problemRepo.save(p);
         }
+        contentCache.invalidateAssignment(a.getId());
 
-        return toResponse(a);
+        return get(a.getId());
     }
 
+    // Od razu tylko oznaczenie (zadanie znika z odczytów); dane kasuje AssignmentPurger paczkami w tle.
     @DeleteMapping("/{id}")
     @Transactional
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        problemRepo.deleteByAssignment_Id(id);
-        submissionRepo.deleteByAssignment_Id(id);
-        assignRepo.deleteByAssignment_Id(id);
-        assignmentRepo.deleteById(id);
+        if (!purger.requestDelete(id)) return ResponseEntity.notFound().build();
+        contentCache.invalidateAssignment(id);
         return ResponseEntity.noContent().build();
     }
 
-    /* ===================== mapery DTO ===================== */
+    // postęp usuwania (także po jego zakończeniu)
+    @GetMapping("/{id}/purge")
+    public AssignmentPurgeResponse purgeProgress(@PathVariable Long id) {
+        var p = purgeRepo.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "PURGE_NOT_FOUND"));
+        return new AssignmentPurgeResponse(id,
+                p.getRequestedAt().toString(),
+                p.getFinishedAt() == null ? null : p.getFinishedAt().toString(),
+                p.getFinishedAt() != null,
+                p.getFormulas(), p.getRevisions(), p.getSubmissions(), p.getLinks(), p.getProblems());
+    }
 
-    // wersja „globalna” (bez kontekstu ucznia)
-    private AssignmentResponse toResponse(Assignment a) {
-        var pOpt = problemRepo.findFirstByAssignment_IdOrderByIdAsc(a.getId());
-        String fmt = pOpt.map(Problem::getFormat).map(Enum::name).orElse(null);
-        String content = pOpt.map(Problem::getContent).orElse(null);
-        String teacherName = (a.getTeacher().getName() != null && !a.getTeacher().getName().isBlank())
-                ? a.getTeacher().getName() : a.getTeacher().getEmail();
+    /* ===================== mapery DTO ===================== */
 
-        return new AssignmentResponse(
-                a.getId(), a.getTeacher().getId(), teacherName, a.getTitle(), a.getDescription(),
-                a.getDueAt() == null ? null : a.getDueAt().toString(),
-                a.getCreatedAt() == null ? null : a.getCreatedAt().toString(),
-                fmt, content, null // studentDueAt – brak w tym wariancie
-        );
-    }
+    private AssignmentResponse toResponse(AssignmentRow r) {
+        String teacherName = (r.teacherName() != null && !r.teacherName().isBlank())
+                ? r.teacherName() : r.teacherEmail();
 
-    // wersja dla widoku ucznia – z per-uczeń due
-    private AssignmentResponse toResponseForStudent(Assignment a, OffsetDateTime studentDue) {
-        var base = toResponse(a);
         return new AssignmentResponse(
-                base.id(), base.teacherId(), base.teacherName(), base.title(), base.description(),
-                base.dueAt(), base.createdAt(), base.problemFormat(), base.problemContent(),
-                studentDue == null ? null : studentDue.toString()
+                r.id(), r.teacherId(), teacherName, r.title(), r.description(),
+                r.dueAt() == null ? null : r.dueAt().toString(),
+                r.createdAt() == null ? null : r.createdAt().toString(),
+                r.problemFormat() == null ? null : r.problemFormat().name(),
+                r.problemContent(),
+                r.studentDueAt() == null ? null : r.studentDueAt().toString() // tylko w widoku ucznia
         );
     }
-
-
 }
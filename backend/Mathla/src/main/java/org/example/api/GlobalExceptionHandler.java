@@ -1,8 +1,11 @@
 // src/main/java/org/example/api/GlobalExceptionHandler.java
 package org.example.api;
 
+import jakarta.persistence.EntityNotFoundException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,6 +24,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<Map<String, Object>> handleRSE(ResponseStatusException ex) {
     String reason = ex.getReason() != null ? ex.getReason() : "ERROR";
     return ResponseEntity.status(ex.getStatusCode())
+        .headers(ex.getHeaders()) // np. Retry-After przy 503
         .body(Map.of(
                         "code", (reason != null ? reason : "ERROR").toUpperCase().replace(' ', '_'),
             "message", reason
@@ -56,4 +60,24 @@ public class GlobalExceptionHandler {
                         "message", "Email already used"
                 ));
     }
+
+    // encja wskazująca na zadanie oznaczone jako usunięte (czeka na AssignmentPurger) → 404
+    @ExceptionHandler({EntityNotFoundException.class, ObjectRetrievalFailureException.class})
+    public ResponseEntity<Map<String, Object>> handleGone(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND.value())
+                .body(Map.of(
+                        "code", "NOT_FOUND",
+                        "message", "Not found"
+                ));
+    }
+
+    // równoległy zapis tego samego wiersza (np. dwa autosave / zapis + ocena) → 409, klient pobiera świeżą wersję
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleStale(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT.value())
+                .body(Map.of(
+                        "code", "STALE_VERSION",
+                        "message", "Record was modified concurrently"
+                ));
+    }
 }
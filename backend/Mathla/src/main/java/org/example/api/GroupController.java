@@ -6,12 +6,23 @@ import org.example.model.Group;
 import org.example.model.GroupStudent;
 import org.example.model.User;
 import org.example.model.UserRole;
+import org.example.repo.AssignmentGroupRepository;
 import org.example.repo.GroupRepository;
 import org.example.repo.GroupStudentRepository;
+import org.example.repo.SqlValues;
 import org.example.repo.UserRepository;
+import org.example.service.ContentCache;
+import org.example.service.GroupRosters;
+import org.example.service.RosterImporter;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 import java.net.URI;
 import java.util.*;
@@ -23,11 +34,21 @@ public class GroupController {
     private final GroupRepository groups;
     private final GroupStudentRepository groupStudents;
     private final UserRepository users;
+    private final AssignmentGroupRepository assignmentGroups;
+    private final ContentCache contentCache;
+    private final GroupRosters rosters;
+    private final RosterImporter importer;
 
-    public GroupController(GroupRepository groups, GroupStudentRepository groupStudents, UserRepository users) {
+    public GroupController(GroupRepository groups, GroupStudentRepository groupStudents, UserRepository users,
+                           AssignmentGroupRepository assignmentGroups, ContentCache contentCache,
+                           GroupRosters rosters, RosterImporter importer) {
         this.groups = groups;
         this.groupStudents = groupStudents;
         this.users = users;
+        this.assignmentGroups = assignmentGroups;
+        this.contentCache = contentCache;
+        this.rosters = rosters;
+        this.importer = importer;
     }
 
     // GET /api/groups?teacherId=...  |  /api/groups?studentId=...
@@ -35,33 +56,15 @@ public class GroupController {
     @GetMapping
     public List<GroupDto> list(@RequestParam(required = false) Long teacherId,
                                @RequestParam(required = false) Long studentId) {
-        if (teacherId != null) {
-            return groups.findByTeacher_Id(teacherId).stream()
-                    .map(g -> toDto(g, null))
-                    .toList();
-        }
-        if (studentId != null) {
-            var links = groupStudents.findByStudent_Id(studentId);
-            return links.stream()
-                    .map(GroupStudent::getGroup)
-                    .distinct()
-                    .map(g -> toDto(g, null))
-                    .toList();
-        }
-        // fallback – np. dla admina/dev
-        return groups.findAll().stream().map(g -> toDto(g, null)).toList();
+        // jedno zapytanie (nauczyciel + liczba członków); teacherId ma pierwszeństwo jak dotąd
+        return groups.findRows(teacherId, teacherId != null ? null : studentId).stream()
+                .map(r -> toDto(r.id(), r.name(), r.teacherName(), r.teacherEmail(), (int) r.memberCount()))
+                .toList();
     }
 
-    private GroupDto toDto(Group g, Integer sizeOverride) {
-        String teacherName = null;
-        String teacherEmail = null;
-        if (g.getTeacher() != null) {
-            teacherEmail = g.getTeacher().getEmail();
-            var nm = g.getTeacher().getName();
-            teacherName = (nm != null && !nm.isBlank()) ? nm : teacherEmail;
-        }
-        Integer size = (sizeOverride != null) ? sizeOverride : groupStudents.countByGroup_Id(g.getId());
-        return new GroupDto(g.getId(), g.getName(), teacherName, teacherEmail, size);
+    private static GroupDto toDto(Long id, String name, String teacherName, String teacherEmail, int size) {
+        String shownName = (teacherName != null && !teacherName.isBlank()) ? teacherName : teacherEmail;
+        return new GroupDto(id, name, shownName, teacherEmail, size);
     }
 
     // POST /api/groups  { name, teacherId }
@@ -79,18 +82,76 @@ public class GroupController {
         g.setTeacher(teacher);
         groups.save(g);
         return ResponseEntity.created(URI.create("/api/groups/" + g.getId()))
-                .body(toDto(g, 0));
+                .body(toDto(g.getId(), g.getName(), teacher.getName(), teacher.getEmail(), 0));
     }
 
     // GET /api/groups/{gid}/students -> lista uczniów (id, name, email)
+    // skład z GroupRosters (chybienie – jedno zapytanie, jednoczesne chybienia scalone)
     @GetMapping("/{gid}/students")
     public List<SimpleUserDto> members(@PathVariable Long gid) {
-        return groupStudents.findByGroup_Id(gid).stream()
-                .map(gs -> gs.getStudent())
-                .map(u -> new SimpleUserDto(u.getId(), u.getName(), u.getEmail()))
-                .toList();
+        var r = rosters.roster(gid);
+        return r == null ? List.of() : members(r);
+    }
+
+    private static List<SimpleUserDto> members(GroupRosters.Roster r) {
+        var out = new ArrayList<SimpleUserDto>(r.size());
+        for (int i = 0; i < r.size(); i++) {
+            out.add(new SimpleUserDto(r.memberIds()[i], r.memberNames()[i], r.memberEmails()[i]));
+        }
+        return out;
+    }
+
+    // GET /api/groups/{gid}/gradebook[?teacherId=] -> macierz uczniowie × zadania (status, ocena, termin efektywny)
+    // jedno zapytanie zbiorcze zamiast 2 żądań na ucznia; teacherId zawęża do zadań nauczyciela
+    @GetMapping("/{gid}/gradebook")
+    public GradebookResponse gradebook(@PathVariable Long gid,
+                                       @RequestParam(required = false) Long teacherId) {
+        if (!groups.existsById(gid)) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "GROUP_NOT_FOUND");
+        var rows = groups.findGradebook(gid, teacherId);
+
+        // słowniki: uczniowie w kolejności zapytania (po nazwisku), zadania po id
+        Map<Long, Integer> studentIdx = new LinkedHashMap<>();
+        List<Object> sId = new ArrayList<>(), sName = new ArrayList<>(), sEmail = new ArrayList<>();
+        Map<Long, String> titles = new TreeMap<>();
+        for (Object[] r : rows) {
+            Long sid = ((Number) r[0]).longValue();
+            if (studentIdx.putIfAbsent(sid, studentIdx.size()) == null) {
+                sId.add(sid);
+                sName.add(r[1]);
+                sEmail.add(r[2]);
+            }
+            if (r[3] != null) titles.putIfAbsent(((Number) r[3]).longValue(), (String) r[4]);
+        }
+        Map<Long, Integer> assignmentIdx = new HashMap<>();
+        for (Long aid : titles.keySet()) assignmentIdx.put(aid, assignmentIdx.size());
+
+        List<Object[]> cells = new ArrayList<>();
+        for (Object[] r : rows) {
+            if (r[3] == null) continue; // uczeń bez zadań – tylko w słowniku
+            var due = SqlValues.timestamp(r[7]);
+            var last = SqlValues.timestamp(r[8]);
+            cells.add(new Object[]{
+                    studentIdx.get(((Number) r[0]).longValue()),
+                    assignmentIdx.get(((Number) r[3]).longValue()),
+                    GRADEBOOK_STATUSES.indexOf((String) r[5]),
+                    r[6],
+                    due == null ? null : due.toString(),
+                    last == null ? null : last.toString(),
+                    ((Number) r[9]).intValue()
+            });
+        }
+
+        return new GradebookResponse(gid,
+                Map.of("id", sId, "name", sName, "email", sEmail),
+                Map.of("id", List.copyOf(titles.keySet()), "title", List.copyOf(titles.values())),
+                GRADEBOOK_STATUSES, GRADEBOOK_CELL_COLUMNS, cells);
     }
 
+    private static final List<String> GRADEBOOK_STATUSES =
+            List.of("NOT_STARTED", "DRAFT", "SUBMITTED", "GRADED", "OVERDUE");
+    private static final List<String> GRADEBOOK_CELL_COLUMNS =
+            List.of("student", "assignment", "status", "score", "dueAt", "lastAt", "graded");
+
     // POST /api/groups/{gid}/students
     @PostMapping("/{gid}/students")
     public AddMembersResult addMembers(@PathVariable Long gid,
@@ -158,12 +219,40 @@ public class GroupController {
         gs.setStudent(u);
         groupStudents.save(gs);
         added.add(id);
+        contentCache.invalidateAssignees(); // nowy członek widzi zadania grupy
+        rosters.invalidate(gid, id);
+    }
+
+    // POST /api/groups/{gid}/students/import – skład z pliku CSV/TSV (treść żądania albo pole "file" formularza)
+    // plik czytany strumieniowo, użytkownicy i wstawienia paczkami (RosterImporter)
+    @PostMapping(value = "/{gid}/students/import",
+            consumes = {"text/csv", "text/tab-separated-values", "text/plain"})
+    public RosterImportResult importMembers(@PathVariable Long gid, InputStream body) {
+        if (!groups.existsById(gid)) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "GROUP_NOT_FOUND");
+        // unieważnienie po każdej zapisanej paczce – także gdy dalsza część pliku się nie uda
+        return importer.importCsv(gid, body, ids -> {
+            contentCache.invalidateAssignees();
+            rosters.invalidate(gid, ids);
+        });
+    }
+
+    @PostMapping(value = "/{gid}/students/import", consumes = "multipart/form-data")
+    public RosterImportResult importMembersFile(@PathVariable Long gid, @RequestParam("file") MultipartFile file)
+            throws IOException {
+        if (file.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "EMPTY_FILE");
+        try (var in = file.getInputStream()) {
+            return importMembers(gid, in);
+        }
     }
 
     // DELETE /api/groups/{gid}/students/{sid}
     @DeleteMapping("/{gid}/students/{sid}")
     public ResponseEntity<Void> remove(@PathVariable Long gid, @PathVariable Long sid) {
         long n = groupStudents.deleteByGroup_IdAndStudent_Id(gid, sid);
+        if (n > 0) {
+            contentCache.invalidateAssignees();
+            rosters.invalidate(gid, sid);
+        }
         return n > 0 ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
@@ -173,44 +262,22 @@ public class GroupController {
     public ResponseEntity<Void> deleteGroup(@PathVariable Long gid) {
         if (!groups.existsById(gid)) return ResponseEntity.notFound().build();
         groupStudents.deleteByGroup_Id(gid);
+        assignmentGroups.deleteByGroup_Id(gid); // przydziały zadań dla tej grupy
         groups.deleteById(gid);
+        contentCache.invalidateAssignees();
+        rosters.invalidate(gid, List.of());
         return ResponseEntity.noContent().build();
     }
 
     // (opcjonalnie – zgodność wsteczna; możesz zostawić lub usunąć,
     // skoro jest już query param studentId)
+    // grupy ucznia ze składami – z GroupRosters, przy chybieniu jedno zapytanie na wszystkie grupy
     @GetMapping("/of-student/{sid}")
-    public List<Map<String, Object>> groupsOfStudent(@PathVariable Long sid) {
-        var links = groupStudents.findByStudent_Id(sid);
-        var groupIds = links.stream().map(gs -> gs.getGroup().getId()).toList();
-        var list = groups.findAllById(groupIds);
-
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (var g : list) {
-            var t = g.getTeacher();
-            var members = groupStudents.findByGroup_Id(g.getId()).stream().map(gs -> {
-                var u = gs.getStudent();
-                Map<String, Object> m = new LinkedHashMap<>();
-                m.put("id", u.getId());
-                m.put("name", u.getName());
-                m.put("email", u.getEmail());
-                return m;
-            }).toList();
-
-            Map<String, Object> item = new LinkedHashMap<>();
-            item.put("id", g.getId());
-            item.put("name", g.getName());
-            Map<String, Object> teacher = new LinkedHashMap<>();
-            if (t != null) {
-                teacher.put("id", t.getId());
-                teacher.put("name", t.getName());
-                teacher.put("email", t.getEmail());
-            }
-            item.put("teacher", teacher);
-            item.put("members", members);
-
-            out.add(item);
-        }
-        return out;
+    public List<StudentGroupDto> groupsOfStudent(@PathVariable Long sid) {
+        return rosters.ofStudent(sid).stream()
+                .map(r -> new StudentGroupDto(r.groupId(), r.name(),
+                        new SimpleUserDto(r.teacherId(), r.teacherName(), r.teacherEmail()),
+                        members(r)))
+                .toList();
     }
 }
@@ -1,6 +1,7 @@
 package org.example.api;
 
 import org.example.api.dto.CreateProblemRequest;
+import org.example.api.dto.ProblemBodyResponse;
 import org.example.api.dto.ProblemResponse;
 import org.example.model.Assignment;
 import org.example.model.Problem;
@@ -9,11 +10,19 @@ import org.example.model.User;
 import org.example.repo.AssignmentRepository;
 import org.example.repo.ProblemRepository;
 import org.example.repo.UserRepository;
+import org.example.repo.ProblemBodyRepository;
+import org.example.service.ContentCache;
+import org.example.service.ProblemBodies;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.net.URI;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api")
@@ -22,13 +31,24 @@ public class ProblemController {
     private final ProblemRepository problemRepo;
     private final AssignmentRepository assignmentRepo;
     private final UserRepository userRepo;
+    private final ContentCache contentCache;
+    private final ProblemBodies problemBodies;
+    private final ProblemBodyRepository bodyRepo;
+
+    private static final Pattern BODY_HASH = Pattern.compile("[0-9a-f]{64}");
 
     public ProblemController(ProblemRepository problemRepo,
                              AssignmentRepository assignmentRepo,
-                             UserRepository userRepo) {
+                             UserRepository userRepo,
+                             ContentCache contentCache,
+                             ProblemBodies problemBodies,
+                             ProblemBodyRepository bodyRepo) {
         this.problemRepo = problemRepo;
         this.assignmentRepo = assignmentRepo;
         this.userRepo = userRepo;
+        this.contentCache = contentCache;
+        this.problemBodies = problemBodies;
+        this.bodyRepo = bodyRepo;
     }
 
     @PostMapping("/problems")
@@ -49,18 +69,40 @@ public class ProblemController {
             p.setAuthor(author);
         }
 
-        p.setContent(req.content());
+        p.setBody(problemBodies.intern(req.content()));
         p.setFormat(req.format() != null ? req.format() : ProblemFormat.MARKDOWN_TEX);
 
         problemRepo.save(p);
+        contentCache.invalidateAssignment(a.getId());
         return ResponseEntity.created(URI.create("/api/problems/" + p.getId()))
                 .body(toResponse(p));
     }
 
+    // ETag/Last-Modified + gotowe (gzip) bajty z ContentCache; 304 bez zapytania do bazy
     @GetMapping("/assignments/{assignmentId}/problems")
-    public List<ProblemResponse> byAssignment(@PathVariable Long assignmentId) {
-        return problemRepo.findByAssignment_Id(assignmentId)
-                .stream().map(this::toResponse).toList();
+    public ResponseEntity<byte[]> byAssignment(@PathVariable Long assignmentId, @RequestHeader HttpHeaders headers) {
+        return contentCache.serve(ContentCache.PROBLEMS + assignmentId, headers, () -> {
+            List<Problem> problems = problemRepo.findWithBodyByAssignment(assignmentId); // treści w tym samym zapytaniu – bez N+1 w toResponse
+            OffsetDateTime last = null;
+            for (var p : problems) {
+                if (last == null || p.getUpdatedAt().isAfter(last)) last = p.getUpdatedAt();
+            }
+            return new ContentCache.Loaded(problems.stream().map(this::toResponse).toList(), last);
+        });
+    }
+
+    // Treść po skrócie: niezmienna, więc ETag = skrót i długie cache'owanie po stronie klienta;
+    // jedna gotowa (gzip) postać dla wszystkich zadań, które tę treść dzielą
+    @GetMapping("/problem-bodies/{hash}")
+    public ResponseEntity<byte[]> body(@PathVariable String hash, @RequestHeader HttpHeaders headers) {
+        if (!BODY_HASH.matcher(hash).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "BAD_HASH");
+        }
+        return contentCache.serveImmutable(hash, headers, () -> {
+            var b = bodyRepo.findById(hash)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "BODY_NOT_FOUND"));
+            return new ProblemBodyResponse(b.getHash(), b.getContent());
+        });
     }
 
     private ProblemResponse toResponse(Problem p) {
@@ -69,6 +111,7 @@ public class ProblemController {
                 p.getAssignment().getId(),
                 p.getAuthor() != null ? p.getAuthor().getId() : null,
                 p.getContent(),
+                p.getBodyHash(),
                 p.getFormat() != null ? p.getFormat().name() : null,
                 p.getCreatedAt() != null ? p.getCreatedAt().toString() : null
         );
@@ -2,6 +2,7 @@ package org.example.api;
 
 import org.example.model.UserRole;
 import org.example.repo.*;
+import org.example.service.SingleFlight;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -15,15 +16,17 @@ public class StatsController {
     private final ProblemRepository problems;
     private final SubmissionRepository submissions;
     private final FormulaRepository formulas;
+    private final SingleFlight flights;
 
     public StatsController(UserRepository users, AssignmentRepository assignments,
                            ProblemRepository problems, SubmissionRepository submissions,
-                           FormulaRepository formulas) {
+                           FormulaRepository formulas, SingleFlight flights) {
         this.users = users;
         this.assignments = assignments;
         this.problems = problems;
         this.submissions = submissions;
         this.formulas = formulas;
+        this.flights = flights;
     }
 
     @GetMapping("/overview")
@@ -39,6 +42,12 @@ public class StatsController {
         );
     }
 
+    // scalanie odczytów: executed = faktyczne ładowania, coalesced = żądania obsłużone cudzym wynikiem
+    @GetMapping("/single-flight")
+    public Map<String, SingleFlight.Stats> singleFlight() {
+        return flights.stats();
+    }
+
     @GetMapping("/user/{id}")
     public Map<String, Object> byUser(@PathVariable Long id) {
         return Map.of(
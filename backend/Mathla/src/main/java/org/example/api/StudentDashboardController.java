@@ -0,0 +1,131 @@
+package org.example.api;
+
+import org.example.api.dto.StudentDashboardResponse;
+import org.example.api.dto.StudentDashboardResponse.Counts;
+import org.example.api.dto.StudentDashboardResponse.GroupRef;
+import org.example.api.dto.StudentDashboardResponse.Item;
+import org.example.config.JwtAuthFilter;
+import org.example.model.SubmissionStatus;
+import org.example.repo.AssignmentRepository;
+import org.example.repo.AssignmentRow;
+import org.example.repo.GroupStudentRepository;
+import org.example.repo.LatestSubmissionRow;
+import org.example.repo.SubmissionRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Panel ucznia jednym żądaniem (zamiast /assignments/assigned + /submissions + /groups i łączenia w przeglądarce).
+ * Trzy niezależne zapytania idą równolegle, każde na własnym wątku wirtualnym.
+ */
+@RestController
+@RequestMapping("/api/students")
+public class StudentDashboardController {
+
+    private final AssignmentRepository assignmentRepo;
+    private final SubmissionRepository submissionRepo;
+    private final GroupStudentRepository groupStudentRepo;
+
+    public StudentDashboardController(AssignmentRepository assignmentRepo,
+                                      SubmissionRepository submissionRepo,
+                                      GroupStudentRepository groupStudentRepo) {
+        this.assignmentRepo = assignmentRepo;
+        this.submissionRepo = submissionRepo;
+        this.groupStudentRepo = groupStudentRepo;
+    }
+
+    @GetMapping("/{id}/dashboard")
+    public StudentDashboardResponse dashboard(@PathVariable Long id, Authentication auth) {
+        assertCanView(id, auth);
+
+        List<AssignmentRow> assigned;
+        List<LatestSubmissionRow> latest;
+        List<Object[]> groupRows;
+        // wątki wirtualne: zapytania czekają na bazę równolegle, bez puli wątków platformy
+        try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<AssignmentRow>> fa = pool.submit(() -> assignmentRepo.findCatalogForStudent(
+                    id, 0L, null, null, null, null, null, Pageable.unpaged()));
+            Future<List<LatestSubmissionRow>> fs = pool.submit(() -> submissionRepo.findLatestByStudent(id));
+            Future<List<Object[]>> fg = pool.submit(() -> groupStudentRepo.findGroupRefsByStudent(id));
+            assigned = join(fa);
+            latest = join(fs);
+            groupRows = join(fg);
+        }
+
+        Map<Long, LatestSubmissionRow> byAssignment = new HashMap<>();
+        for (var s : latest) byAssignment.put(s.assignmentId(), s);
+
+        OffsetDateTime now = OffsetDateTime.now();
+        int todo = 0, overdue = 0, submitted = 0, graded = 0;
+        List<Item> items = new ArrayList<>(assigned.size());
+        for (var a : assigned) {
+            var s = byAssignment.get(a.id());
+            OffsetDateTime due = a.studentDueAt() != null ? a.studentDueAt() : a.dueAt();
+            String status = status(s, due, now);
+            switch (status) {
+                case "GRADED" -> graded++;
+                case "SUBMITTED" -> submitted++;
+                case "OVERDUE" -> overdue++;
+                default -> todo++;
+            }
+            String teacherName = (a.teacherName() != null && !a.teacherName().isBlank())
+                    ? a.teacherName() : a.teacherEmail();
+            items.add(new Item(a.id(), a.title(), teacherName,
+                    due == null ? null : due.toString(),
+                    status,
+                    s == null ? null : s.score(),
+                    s == null ? null : s.submissionId(),
+                    s == null || s.submittedAt() == null ? null : s.submittedAt().toString()));
+        }
+
+        List<GroupRef> groups = groupRows.stream()
+                .map(r -> new GroupRef((Long) r[0], (String) r[1]))
+                .toList();
+
+        return new StudentDashboardResponse(id, now.toString(),
+                new Counts(items.size(), todo, overdue, submitted, graded, groups.size()),
+                groups, items);
+    }
+
+    /* ====== POMOCNICZE ====== */
+
+    // ta sama kolejność reguł co w StudentHome/StudentStats
+    private static String status(LatestSubmissionRow s, OffsetDateTime due, OffsetDateTime now) {
+        if (s != null && s.status() == SubmissionStatus.GRADED) return "GRADED";
+        if (s != null && s.status() == SubmissionStatus.SUBMITTED) return "SUBMITTED";
+        if (due != null && due.isBefore(now)) return "OVERDUE";
+        if (s != null) return "DRAFT";
+        return "NOT_STARTED";
+    }
+
+    // uczeń widzi tylko swój panel, nauczyciel – dowolnego ucznia
+    private static void assertCanView(Long studentId, Authentication auth) {
+        if (auth == null || !(auth.getPrincipal() instanceof JwtAuthFilter.AuthUser au)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "NO_AUTH");
+        }
+        if (!"TEACHER".equals(au.role()) && !studentId.equals(au.id())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "NOT_OWNER");
+        }
+    }
+
+    private static <T> T join(Future<T> f) {
+        try {
+            return f.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -1,12 +1,22 @@
 package org.example.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.api.dto.AnswerPatchRequest;
+import org.example.api.dto.AnswerPatchResponse;
 import org.example.api.dto.CreateSubmissionRequest;
+import org.example.api.dto.GradeBatchRequest;
+import org.example.api.dto.GradeBatchResult;
+import org.example.api.dto.GradeMissingAllRequest;
 import org.example.api.dto.GradeMissingRequest;
 import org.example.api.dto.GradeSubmissionRequest;
+import org.example.api.dto.RevisionDiffResponse;
 import org.example.api.dto.SubmissionResponse;
+import org.example.api.dto.SubmissionRevisionDto;
+import org.example.api.dto.SubmissionRevisionResponse;
 import org.example.api.dto.UpdateSubmissionRequest;
 import org.example.model.Assignment;
-import org.example.model.AssignmentStudent;
 import org.example.model.Submission;
 import org.example.model.SubmissionStatus;
 import org.example.model.User;
@@ -14,21 +24,38 @@ import org.example.repo.AssignmentRepository;
 import org.example.repo.AssignmentStudentRepository;
 import org.example.repo.FormulaRepository;
 import org.example.repo.SubmissionRepository;
+import org.example.repo.SubmissionRevisionRepository;
+import org.example.repo.SubmissionRow;
 import org.example.repo.UserRepository;
+import org.example.service.DueDateResolver;
+import org.example.service.IdempotencyStore;
+import org.example.service.RevisionLog;
+import org.example.service.SubmissionEvents;
+import org.example.service.SubmissionIngest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
-import java.util.Comparator;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/submissions")
@@ -39,24 +66,72 @@ public class SubmissionController {
     private final UserRepository userRepo;
     private final FormulaRepository formulaRepo;
     private final AssignmentStudentRepository assignRepo;
+    private final DueDateResolver dueDates;
+    private final ObjectMapper json;
+    private final SubmissionEvents events;
+    private final RevisionLog revisions;
+    private final SubmissionRevisionRepository revisionRepo;
+    private final SubmissionIngest ingest;
+    private final TransactionTemplate tx;
+    private final IdempotencyStore idempotency;
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int STREAM_CHUNK = 500;
+    private static final int MAX_PAGE = 1000;
 
     public SubmissionController(SubmissionRepository submissionRepo,
                                 AssignmentRepository assignmentRepo,
                                 UserRepository userRepo,
                                 FormulaRepository formulaRepo,
-                                AssignmentStudentRepository assignRepo) {
+                                AssignmentStudentRepository assignRepo,
+                                DueDateResolver dueDates,
+                                ObjectMapper json,
+                                SubmissionEvents events,
+                                RevisionLog revisions,
+                                SubmissionRevisionRepository revisionRepo,
+                                SubmissionIngest ingest,
+                                TransactionTemplate tx,
+                                IdempotencyStore idempotency) {
         this.submissionRepo = submissionRepo;
         this.assignmentRepo = assignmentRepo;
         this.userRepo = userRepo;
         this.formulaRepo = formulaRepo;
         this.assignRepo = assignRepo;
+        this.dueDates = dueDates;
+        this.json = json;
+        this.events = events;
+        this.revisions = revisions;
+        this.revisionRepo = revisionRepo;
+        this.ingest = ingest;
+        this.tx = tx;
+        this.idempotency = idempotency;
     }
 
     private static String displayName(User u) {
         if (u == null) return null;
-        String n = u.getName() == null ? "" : u.getName().trim();
+        return displayName(u.getName(), u.getEmail(), u.getId());
+    }
+
+    private static String displayName(String name, String email, Long id) {
+        String n = name == null ? "" : name.trim();
         if (!n.isBlank()) return n;
-        return u.getEmail() != null ? u.getEmail() : ("#" + u.getId());
+        return email != null ? email : ("#" + id);
+    }
+
+    private SubmissionResponse toDto(SubmissionRow r) {
+        return new SubmissionResponse(
+                r.id(),
+                r.assignmentId(),
+                r.assignmentTitle(),
+                r.studentId(),
+                displayName(r.studentName(), r.studentEmail(), r.studentId()),
+                r.textAnswer(),
+                r.score() == null ? null : r.score().toPlainString(),
+                r.status() == null ? null : r.status().name(),
+                r.createdAt() == null ? null : r.createdAt().toString(),
+                r.reviewNote(),
+                r.version()
+        );
     }
 
     private SubmissionResponse toDto(Submission s) {
@@ -73,21 +148,13 @@ public class SubmissionController {
                 s.getScore() == null ? null : s.getScore().toPlainString(), // BigDecimal → String
                 s.getStatus() == null ? null : s.getStatus().name(),
                 s.getCreatedAt() == null ? null : s.getCreatedAt().toString(),
-                s.getReviewNote()
+                s.getReviewNote(),
+                s.getVersion()
         );
     }
 
     /* ====== POMOCNICZE ====== */
 
-    /** Termin efektywny: per-uczeń (AssignmentStudent.dueAt) → globalny (Assignment.dueAt) → null (bez terminu). */
-    private OffsetDateTime effectiveDueAt(Long assignmentId, Long studentId) {
-        if (assignmentId == null || studentId == null) return null;
-        Assignment a = assignmentRepo.findById(Objects.requireNonNull(assignmentId)).orElseThrow();
-        Optional<AssignmentStudent> linkOpt = assignRepo.findByAssignment_IdAndStudent_Id(Objects.requireNonNull(assignmentId), Objects.requireNonNull(studentId));
-        if (linkOpt.isPresent() && linkOpt.get().getDueAt() != null) return linkOpt.get().getDueAt();
-        return a.getDueAt();
-    }
-
     private boolean isAfterNow(OffsetDateTime dt) {
         return dt != null && OffsetDateTime.now().isAfter(dt);
     }
@@ -96,13 +163,13 @@ public class SubmissionController {
         if (assignmentId == null || studentId == null) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "IDS_REQUIRED");
         }
-        if (!assignRepo.existsByAssignment_IdAndStudent_Id(Objects.requireNonNull(assignmentId), Objects.requireNonNull(studentId))) {
+        if (!assignRepo.isAssigned(Objects.requireNonNull(assignmentId), Objects.requireNonNull(studentId))) { // indywidualnie lub przez grupę
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "NOT_ASSIGNED");
         }
     }
 
     private void assertNotPastDeadline(Long assignmentId, Long studentId) {
-        OffsetDateTime due = effectiveDueAt(Objects.requireNonNull(assignmentId), Objects.requireNonNull(studentId));
+        OffsetDateTime due = dueDates.resolve(Objects.requireNonNull(assignmentId), Objects.requireNonNull(studentId));
         if (isAfterNow(due)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "DEADLINE_PASSED");
         }
@@ -121,6 +188,11 @@ public class SubmissionController {
         return null;
     }
 
+    // Klucz idempotencji obowiązuje w obrębie użytkownika i endpointu
+    private String idempotencyScope(String endpoint) {
+        return endpoint + "|u" + currentUserId();
+    }
+
     private boolean isTeacher() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null) return false;
@@ -134,7 +206,10 @@ public class SubmissionController {
     }
 
     private void assertTeacherOwner(Long assignmentId, Long teacherId) {
-        Assignment a = assignmentRepo.findById(Objects.requireNonNull(assignmentId)).orElseThrow();
+        checkTeacherOwner(assignmentRepo.findById(Objects.requireNonNull(assignmentId)).orElseThrow(), teacherId);
+    }
+
+    private void checkTeacherOwner(Assignment a, Long teacherId) {
         if (a.getTeacher() == null) return; // brak przypisanego nauczyciela → pomijamy
         if (teacherId == null) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "TEACHER_ID_MISSING");
@@ -164,39 +239,34 @@ public class SubmissionController {
 
     /* ====== ENDPOINTY ====== */
 
-    // START — zwraca istniejące lub tworzy DRAFT (przed terminem)
+    // START — zwraca istniejące lub tworzy DRAFT (przed terminem); przez bufor zapisów (group commit)
     @PostMapping("/start")
-    public ResponseEntity<SubmissionResponse> start(@RequestBody CreateSubmissionRequest req) {
+    public ResponseEntity<SubmissionResponse> start(@RequestBody CreateSubmissionRequest req,
+                                                    @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idemKey) {
         if (req.assignmentId() == null || req.studentId() == null) {
             return ResponseEntity.badRequest().build();
         }
-    var a = assignmentRepo.findById(Objects.requireNonNull(req.assignmentId())).orElseThrow();
-    var u = userRepo.findById(Objects.requireNonNull(req.studentId())).orElseThrow();
-
-        assertAssigned(a.getId(), u.getId());
-        assertNotPastDeadline(a.getId(), u.getId());
-
-        var existing = submissionRepo.findTopByAssignment_IdAndStudent_IdOrderByIdDesc(a.getId(), u.getId());
-        if (existing.isPresent()) {
-            return ResponseEntity.ok(toDto(existing.get()));
-        }
-
-        var s = new Submission();
-        s.setAssignment(a);
-        s.setStudent(u);
-        s.setTextAnswer(req.textAnswer());
-        s.setStatus(SubmissionStatus.DRAFT);
-        s.setCreatedAt(OffsetDateTime.now());
-        submissionRepo.save(s);
-
-    return ResponseEntity.created(Objects.requireNonNull(URI.create("/api/submissions/" + s.getId()))).body(toDto(s));
+        return idempotency.execute(idemKey, idempotencyScope("POST /api/submissions/start"), req, SubmissionResponse.class,
+                () -> ingest.apply(new SubmissionIngest.Start(req.assignmentId(), req.studentId(), req.textAnswer()), r -> {
+            var dto = toDto(r.submission());
+            return r.created()
+                    ? ResponseEntity.created(Objects.requireNonNull(URI.create("/api/submissions/" + dto.id()))).body(dto)
+                    : ResponseEntity.ok(dto);
+        }));
     }
 
+    // Idempotency-Key: powtórka po timeoucie zwraca tę samą pracę zamiast tworzyć kolejny DRAFT
     @PostMapping
-    public ResponseEntity<SubmissionResponse> create(@RequestBody CreateSubmissionRequest req) {
+    public ResponseEntity<SubmissionResponse> create(@RequestBody CreateSubmissionRequest req,
+                                                     @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idemKey) {
         if (req.assignmentId() == null || req.studentId() == null) {
             return ResponseEntity.badRequest().build();
         }
+        return idempotency.execute(idemKey, idempotencyScope("POST /api/submissions"), req, SubmissionResponse.class,
+                () -> tx.execute(st -> doCreate(req)));
+    }
+
+    private ResponseEntity<SubmissionResponse> doCreate(CreateSubmissionRequest req) {
         assertAssigned(req.assignmentId(), req.studentId());
         assertNotPastDeadline(req.assignmentId(), req.studentId());
 
@@ -210,157 +280,308 @@ public class SubmissionController {
         s.setStatus(SubmissionStatus.DRAFT);
         s.setCreatedAt(OffsetDateTime.now());
         submissionRepo.save(s);
+        revisions.recordEdit(s.getId(), null, s.getTextAnswer(), RevisionLog.CREATE);
+        events.publish(s);
 
     return ResponseEntity.created(Objects.requireNonNull(URI.create("/api/submissions/" + s.getId()))).body(toDto(s));
     }
 
-    // LISTA — po studentId / assignmentId / teacherId
+    // LISTA — po studentId / assignmentId / teacherId (bez zapisów)
+    // Stronicowanie keyset po id DESC: ?cursor=<ostatnie id>&limit=N → nagłówek X-Next-Cursor, gdy jest dalej.
+    // Bez limitu zwracamy całość, ale pobieraną i zapisywaną do odpowiedzi porcjami (JSON strumieniowo).
     @GetMapping
-    public List<SubmissionResponse> list(@RequestParam(required = false) Long studentId,
-                                         @RequestParam(required = false) Long assignmentId,
-                                         @RequestParam(required = false) Long teacherId) {
-        List<Submission> list;
-        if (studentId != null) {
-            list = submissionRepo.findByStudent_IdOrderByIdDesc(studentId);
-        } else if (assignmentId != null) {
-            list = submissionRepo.findByAssignment_Id(assignmentId);
-        } else if (teacherId != null) {
-            list = submissionRepo.findByAssignment_Teacher_IdOrderByIdDesc(teacherId);
-        } else {
-            list = submissionRepo.findAll();
-            list.sort(Comparator.comparingLong(Submission::getId).reversed());
-        }
-
-        // AUTO-SUBMIT: każdy DRAFT którego termin (efektywny) minął przechodzi na SUBMITTED.
-        // Dzięki temu nauczyciel widzi go w kolejce, a uczeń nie może już edytować.
-        // Operacja wykonywana przy każdym pobraniu listy – idempotentna.
-        boolean anyChanged = false;
-        for (Submission s : list) {
-            if (s.getStatus() == SubmissionStatus.DRAFT) {
-                OffsetDateTime due = effectiveDueAt(s.getAssignment().getId(), s.getStudent().getId());
-                if (due != null && OffsetDateTime.now().isAfter(due)) {
-                    s.setStatus(SubmissionStatus.SUBMITTED);
-                    submissionRepo.save(s);
-                    anyChanged = true;
-                }
-            }
+    public void list(@RequestParam(required = false) Long studentId,
+                     @RequestParam(required = false) Long assignmentId,
+                     @RequestParam(required = false) Long teacherId,
+                     @RequestParam(required = false) Long cursor,
+                     @RequestParam(required = false) Integer limit,
+                     HttpServletResponse response) throws IOException {
+        long after = cursor != null ? cursor : Long.MAX_VALUE;
+        int pageSize = limit == null ? STREAM_CHUNK : Math.max(1, Math.min(limit, MAX_PAGE));
+
+        List<SubmissionRow> chunk = fetchPage(studentId, assignmentId, teacherId, after, pageSize + 1);
+        if (limit != null && chunk.size() > pageSize) {
+            response.setHeader(NEXT_CURSOR_HEADER, String.valueOf(chunk.get(pageSize - 1).id()));
         }
-        if (anyChanged) {
-            // odśwież listę jeśli coś zmieniliśmy, aby zwrócić aktualny stan
-            if (studentId != null) {
-                list = submissionRepo.findByStudent_IdOrderByIdDesc(studentId);
-            } else if (assignmentId != null) {
-                list = submissionRepo.findByAssignment_Id(assignmentId);
-            } else if (teacherId != null) {
-                list = submissionRepo.findByAssignment_Teacher_IdOrderByIdDesc(teacherId);
-            } else {
-                list = submissionRepo.findAll();
-                list.sort(Comparator.comparingLong(Submission::getId).reversed());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        try (JsonGenerator gen = json.getFactory().createGenerator(response.getOutputStream())) {
+            gen.writeStartArray();
+            while (true) {
+                boolean more = chunk.size() > pageSize;
+                var rows = more ? chunk.subList(0, pageSize) : chunk;
+                for (SubmissionRow r : rows) gen.writeObject(toDto(r));
+                if (!more || limit != null) break;
+
+                gen.flush();
+                after = rows.get(rows.size() - 1).id();
+                chunk = fetchPage(studentId, assignmentId, teacherId, after, pageSize + 1);
             }
+            gen.writeEndArray();
         }
+    }
+
+    private List<SubmissionRow> fetchPage(Long studentId, Long assignmentId, Long teacherId, long after, int size) {
+        Pageable page = PageRequest.of(0, size);
+        if (studentId != null) return submissionRepo.findRowsByStudent(studentId, after, page);
+        if (assignmentId != null) return submissionRepo.findRowsByAssignment(assignmentId, after, page);
+        if (teacherId != null) return submissionRepo.findRowsByTeacher(teacherId, after, page);
+        return submissionRepo.findRows(after, page);
+    }
 
-        return list.stream().map(this::toDto).toList();
+    // NAUCZYCIEL: strumień SSE zmian statusów w jego zadaniach (zamiast przeładowywania całej listy)
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam(required = false) Long teacherId) {
+        Long tid = teacherId != null ? teacherId : currentUserId();
+        if (tid == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "TEACHER_ID_MISSING");
+        }
+        return events.subscribe(tid);
     }
 
     // UCZEŃ: aktualizacja odpowiedzi / statusu (np. SUBMITTED) — przed terminem
+    // Zapisy ucznia idą przez bufor (group commit), nauczyciela – bezpośrednio.
     @PutMapping("/{id}")
     public SubmissionResponse update(@PathVariable Long id, @RequestBody UpdateSubmissionRequest req) {
-        var s = submissionRepo.findById(Objects.requireNonNull(id)).orElseThrow();
-
-        boolean teacher = isTeacher();
-        if (!teacher) {
-            // Po terminie blokujemy modyfikacje ucznia (brak terminu = brak blokady)
-            assertNotPastDeadline(s.getAssignment().getId(), s.getStudent().getId());
-        }
-
-        if (req.textAnswer() != null && !teacher) { // tekst zmienia tylko uczeń
-            s.setTextAnswer(req.textAnswer());
-        }
+        SubmissionStatus target = null;
         if (req.status() != null) {
-            SubmissionStatus target;
             try {
                 target = SubmissionStatus.valueOf(req.status().toUpperCase());
             } catch (IllegalArgumentException ex) {
                 throw new IllegalArgumentException("Invalid status: " + req.status());
             }
+        }
+        if (!isTeacher()) {
+            // termin (brak terminu = brak blokady) i wersję sprawdza bufor, razem z całą paczką
+            return ingest.apply(new SubmissionIngest.Edit(id, req.version(), req.textAnswer(), target),
+                    r -> toDto(r.submission()));
+        }
+        SubmissionStatus teacherTarget = target;
+        return tx.execute(st -> teacherUpdate(id, req.version(), teacherTarget));
+    }
 
-            if (teacher) {
-                // Nauczyciel: dozwolone szybkie przejścia, niezależnie od terminu
-                if (target == SubmissionStatus.SUBMITTED && s.getStatus() == SubmissionStatus.GRADED) {
-                    s.setStatus(SubmissionStatus.SUBMITTED);
-                } else if (target == SubmissionStatus.DRAFT && (s.getStatus() == SubmissionStatus.GRADED || s.getStatus() == SubmissionStatus.SUBMITTED)) {
-                    s.setScore(null); // przy retake czyścimy ocenę
-                    s.setStatus(SubmissionStatus.DRAFT);
-                } else {
-                    // inne przejścia nauczyciela: zachowawczo pozwól ustawić jeśli nie łamie logiki
-                    s.setStatus(target);
-                }
-            } else {
-                // Uczeń: standardowe ustawienie
-                s.setStatus(target);
-            }
+    private SubmissionResponse teacherUpdate(Long id, Long version, SubmissionStatus target) {
+        var s = submissionRepo.findById(Objects.requireNonNull(id)).orElseThrow();
+
+        if (version != null && !version.equals(s.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "STALE_VERSION");
+        }
+
+        var statusBefore = s.getStatus();
+        // Nauczyciel: dozwolone szybkie przejścia, niezależnie od terminu (tekst zmienia tylko uczeń)
+        if (target == SubmissionStatus.SUBMITTED && s.getStatus() == SubmissionStatus.GRADED) {
+            s.setStatus(SubmissionStatus.SUBMITTED);
+        } else if (target == SubmissionStatus.DRAFT && (s.getStatus() == SubmissionStatus.GRADED || s.getStatus() == SubmissionStatus.SUBMITTED)) {
+            s.setScore(null); // przy retake czyścimy ocenę
+            s.setStatus(SubmissionStatus.DRAFT);
+            revisions.recordRetake(s.getId(), s.getTextAnswer());
+        } else if (target != null) {
+            // inne przejścia nauczyciela: zachowawczo pozwól ustawić jeśli nie łamie logiki
+            s.setStatus(target);
         }
-        submissionRepo.save(Objects.requireNonNull(s));
+        submissionRepo.saveAndFlush(Objects.requireNonNull(s)); // flush → odpowiedź z nową wersją
+        if (s.getStatus() != statusBefore) events.publish(s);
         return toDto(s);
     }
 
+    // UCZEŃ: autosave – mała łatka tekstu względem wersji; nieaktualna wersja → 409 bez blokowania wiersza
+    @PatchMapping("/{id}/answer")
+    @Transactional
+    public AnswerPatchResponse patchAnswer(@PathVariable Long id, @RequestBody AnswerPatchRequest req) {
+        if (req.version() == null || req.offset() == null || req.offset() < 0
+                || (req.deleteCount() != null && req.deleteCount() < 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "INVALID_PATCH");
+        }
+        Long studentId = currentUserId();
+        int deleteCount = req.deleteCount() == null ? 0 : req.deleteCount();
+        String insert = req.insert() == null ? "" : req.insert();
+
+        int n = submissionRepo.applyAnswerPatch(id, studentId, req.version(), req.offset(), deleteCount, insert);
+        if (n == 1) {
+            revisions.recordPatch(id, req.offset(), deleteCount, insert);
+            return new AnswerPatchResponse(id, req.version() + 1);
+        }
+        throw patchRejection(id, studentId, req, deleteCount); // ścieżka błędu – dopiero tu czytamy wiersz
+    }
+
+    private ResponseStatusException patchRejection(Long id, Long studentId, AnswerPatchRequest req, int deleteCount) {
+        var s = submissionRepo.findById(Objects.requireNonNull(id)).orElse(null);
+        if (s == null) return new ResponseStatusException(HttpStatus.NOT_FOUND, "NOT_FOUND");
+        // zadanie oznaczone jako usunięte (czeka na AssignmentPurger) – nie „po terminie”
+        if (!assignmentRepo.existsById(s.getAssignment().getId())) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "ASSIGNMENT_NOT_FOUND");
+        }
+        if (!s.getStudent().getId().equals(studentId)) return new ResponseStatusException(HttpStatus.FORBIDDEN, "NOT_OWNER");
+        if (!req.version().equals(s.getVersion())) return new ResponseStatusException(HttpStatus.CONFLICT, "STALE_VERSION");
+        if (s.getStatus() == SubmissionStatus.GRADED) return new ResponseStatusException(HttpStatus.FORBIDDEN, "ALREADY_GRADED");
+        String text = s.getTextAnswer() == null ? "" : s.getTextAnswer();
+        int len = text.codePointCount(0, text.length()); // jak char_length w PostgreSQL
+        if (req.offset() + deleteCount > len) return new ResponseStatusException(HttpStatus.BAD_REQUEST, "PATCH_OUT_OF_RANGE");
+        return new ResponseStatusException(HttpStatus.FORBIDDEN, "DEADLINE_PASSED");
+    }
+
+    // HISTORIA odpowiedzi: lista rewizji (bez treści), tekst w danej rewizji, różnica dwóch rewizji
+    @GetMapping("/{id}/revisions")
+    public List<SubmissionRevisionDto> revisions(@PathVariable Long id) {
+        assertCanRead(id);
+        return revisionRepo.findRows(id).stream()
+                .map(r -> new SubmissionRevisionDto(r.revNo(), r.kind().name(), r.reason(),
+                        r.createdAt() == null ? null : r.createdAt().toString()))
+                .toList();
+    }
+
+    @GetMapping("/{id}/revisions/{rev}")
+    public SubmissionRevisionResponse revision(@PathVariable Long id, @PathVariable Integer rev) {
+        assertCanRead(id);
+        var meta = revisionRepo.findRows(id).stream()
+                .filter(r -> r.revNo().equals(rev)).findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "REVISION_NOT_FOUND"));
+        return new SubmissionRevisionResponse(id, rev, meta.reason(),
+                meta.createdAt() == null ? null : meta.createdAt().toString(),
+                revisions.textAt(id, rev));
+    }
+
+    // ?from=0 = pusty tekst; brak "to" = najnowsza rewizja
+    @GetMapping("/{id}/revisions/diff")
+    public RevisionDiffResponse revisionDiff(@PathVariable Long id,
+                                             @RequestParam int from,
+                                             @RequestParam(required = false) Integer to) {
+        assertCanRead(id);
+        int target = to != null ? to : revisionRepo.findRows(id).stream()
+                .mapToInt(r -> r.revNo()).max()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "REVISION_NOT_FOUND"));
+        try {
+            var d = revisions.diff(id, from, target);
+            return new RevisionDiffResponse(from, target, d.pos(), d.deleteCount(), d.insert());
+        } catch (NoSuchElementException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "REVISION_NOT_FOUND");
+        }
+    }
+
+    // Historię widzi właściciel pracy albo nauczyciel – właściciel zadania
+    private void assertCanRead(Long submissionId) {
+        var s = submissionRepo.findById(Objects.requireNonNull(submissionId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "NOT_FOUND"));
+        Long uid = currentUserId();
+        if (isTeacher()) {
+            checkTeacherOwner(s.getAssignment(), uid);
+        } else if (uid == null || !uid.equals(s.getStudent().getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "NOT_OWNER");
+        }
+    }
+
     // NAUCZYCIEL: OCENA (pozwala DRAFT po terminie przy teacherOverride=true)
     @PutMapping("/{id}/grade")
+    @Transactional
     public SubmissionResponse grade(@PathVariable Long id, @RequestBody GradeSubmissionRequest req) {
-    var s = submissionRepo.findById(Objects.requireNonNull(id)).orElseThrow();
+        var s = submissionRepo.findById(Objects.requireNonNull(id)).orElseThrow();
 
-    Long teacherId = req.teacherId() != null ? req.teacherId() : currentUserId();
-    assertTeacherOwner(s.getAssignment().getId(), teacherId);
+        Long teacherId = req.teacherId() != null ? req.teacherId() : currentUserId();
+        assertTeacherOwner(s.getAssignment().getId(), teacherId);
 
-    OffsetDateTime due = effectiveDueAt(s.getAssignment().getId(), s.getStudent().getId());
-    boolean pastDue = isAfterNow(due);
-    boolean teacherOverride = Boolean.TRUE.equals(req.teacherOverride());
-    // RETAKE LOGIC: jeśli teacher przesyła status=DRAFT (z tolerancją spacji/małych liter) – cofamy do poprawy
-    String rawStatus = req.status();
-    boolean retakeRequested = rawStatus != null && "DRAFT".equalsIgnoreCase(rawStatus.trim());
-    // Dodatkowe zabezpieczenie: jeśli status nie został przesłany, ale obecny stan to GRADED,
-    // traktuj żądanie bez oceny (score==null) jako retake.
-    if (!retakeRequested && rawStatus == null && s.getStatus() == SubmissionStatus.GRADED && req.score() == null) {
-        retakeRequested = true;
+        applyGrade(s, req, dueDates.resolve(s.getAssignment().getId(), s.getStudent().getId()));
+        submissionRepo.saveAndFlush(s); // flush → odpowiedź z nową wersją
+        events.publish(s);
+        return toDto(s);
     }
 
-    boolean canGradeNow =
-        retakeRequested
-            || s.getStatus() == SubmissionStatus.SUBMITTED
-            || s.getStatus() == SubmissionStatus.GRADED /* re-grade allowed */
-            || (teacherOverride && pastDue && s.getStatus() == SubmissionStatus.DRAFT);
-
-    if (!canGradeNow) {
-        throw new ResponseStatusException(HttpStatus.FORBIDDEN,
-            "NEEDS_SUBMITTED or teacherOverride=true after due date for DRAFT (or retake)");
+    // NAUCZYCIEL: ocena wielu prac naraz (panel oceniania) – jedna transakcja, wynik per pozycja
+    @PutMapping("/grade-batch")
+    @Transactional
+    public List<GradeBatchResult> gradeBatch(@RequestBody GradeBatchRequest req) {
+        var items = req.items() == null ? List.<GradeBatchRequest.Item>of() : req.items();
+        Long teacherId = req.teacherId() != null ? req.teacherId() : currentUserId();
+
+        var ids = items.stream().map(GradeBatchRequest.Item::id).filter(Objects::nonNull).distinct().toList();
+        Map<Long, Submission> byId = new HashMap<>();
+        for (var s : submissionRepo.findByIdIn(ids)) byId.put(s.getId(), s);
+
+        var dues = dueDates.resolveAll(byId.values().stream()
+                .map(s -> new DueDateResolver.Key(s.getAssignment().getId(), s.getStudent().getId()))
+                .toList());
+
+        List<GradeBatchResult> out = new ArrayList<>(items.size());
+        Map<Integer, Submission> graded = new HashMap<>(); // pozycja w odpowiedzi → praca (DTO po flush)
+        for (var item : items) {
+            Submission s = item.id() == null ? null : byId.get(item.id());
+            if (s == null) {
+                out.add(GradeBatchResult.failed(item.id(), HttpStatus.NOT_FOUND, "NOT_FOUND"));
+                continue;
+            }
+            try {
+                checkTeacherOwner(s.getAssignment(), teacherId);
+                var single = new GradeSubmissionRequest(item.score(), item.status(), item.reviewNote(),
+                        item.teacherOverride() != null ? item.teacherOverride() : req.teacherOverride(), teacherId);
+                applyGrade(s, single, dues.get(new DueDateResolver.Key(s.getAssignment().getId(), s.getStudent().getId())));
+                events.publish(s); // wyjdzie po commit
+                graded.put(out.size(), s);
+                out.add(null);
+            } catch (ResponseStatusException ex) {
+                out.add(GradeBatchResult.failed(item.id(), ex.getStatusCode(), ex.getReason()));
+            }
+        }
+        // UPDATE-y idą paczkami (hibernate.jdbc.batch_size); flush przed DTO, żeby zwrócić nowe wersje
+        submissionRepo.flush();
+        graded.forEach((i, s) -> out.set(i, GradeBatchResult.ok(toDto(s))));
+        return out;
     }
 
+    /** Reguły oceny wspólne dla /grade i /grade-batch: retake, re-grade, override DRAFT po terminie. */
+    private void applyGrade(Submission s, GradeSubmissionRequest req, OffsetDateTime due) {
+        boolean pastDue = isAfterNow(due);
+        boolean teacherOverride = Boolean.TRUE.equals(req.teacherOverride());
+        // RETAKE LOGIC: jeśli teacher przesyła status=DRAFT (z tolerancją spacji/małych liter) – cofamy do poprawy
+        String rawStatus = req.status();
+        boolean retakeRequested = rawStatus != null && "DRAFT".equalsIgnoreCase(rawStatus.trim());
+        // Dodatkowe zabezpieczenie: jeśli status nie został przesłany, ale obecny stan to GRADED,
+        // traktuj żądanie bez oceny (score==null) jako retake.
+        if (!retakeRequested && rawStatus == null && s.getStatus() == SubmissionStatus.GRADED && req.score() == null) {
+            retakeRequested = true;
+        }
+
+        boolean canGradeNow =
+            retakeRequested
+                || s.getStatus() == SubmissionStatus.SUBMITTED
+                || s.getStatus() == SubmissionStatus.GRADED /* re-grade allowed */
+                || (teacherOverride && pastDue && s.getStatus() == SubmissionStatus.DRAFT);
+
+        if (!canGradeNow) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                "NEEDS_SUBMITTED or teacherOverride=true after due date for DRAFT (or retake)");
+        }
+
         if (retakeRequested) {
+            revisions.recordRetake(s.getId(), s.getTextAnswer());
             s.setScore(null);
             if (req.reviewNote() != null) s.setReviewNote(req.reviewNote());
             s.setStatus(SubmissionStatus.DRAFT);
         } else {
-            if (req.score() != null) s.setScore(parseScore(req.score()));
+            BigDecimal score = parseScore(req.score()); // najpierw walidacja – przy błędzie nic nie zmieniamy
+            if (score != null) s.setScore(score);
             if (req.reviewNote() != null) s.setReviewNote(req.reviewNote());
             s.setStatus(SubmissionStatus.GRADED);
         }
         s.setCreatedAt(s.getCreatedAt() == null ? OffsetDateTime.now() : s.getCreatedAt());
-
-        submissionRepo.save(s);
-        return toDto(s);
     }
 
     // NAUCZYCIEL: ocena „bez zgłoszenia” — tworzy minimalny DRAFT i od razu GRADED
     @PostMapping("/grade-missing")
-    public ResponseEntity<SubmissionResponse> gradeMissing(@RequestBody GradeMissingRequest req) {
+    public ResponseEntity<SubmissionResponse> gradeMissing(@RequestBody GradeMissingRequest req,
+                                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idemKey) {
         if (req.assignmentId() == null || req.studentId() == null) {
             return ResponseEntity.badRequest().build();
         }
+        return idempotency.execute(idemKey, idempotencyScope("POST /api/submissions/grade-missing"), req, SubmissionResponse.class,
+                () -> doGradeMissing(req));
+    }
+
+    private ResponseEntity<SubmissionResponse> doGradeMissing(GradeMissingRequest req) {
 
         assertTeacherOwner(req.assignmentId(), req.teacherId());
         assertAssigned(req.assignmentId(), req.studentId());
 
-        OffsetDateTime due = effectiveDueAt(req.assignmentId(), req.studentId());
+        OffsetDateTime due = dueDates.resolve(req.assignmentId(), req.studentId());
         if (!Boolean.TRUE.equals(req.teacherOverride()) || !isAfterNow(due)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "OVERRIDE_AFTER_DUE_REQUIRED");
         }
@@ -382,15 +603,41 @@ public class SubmissionController {
 
         // <- tu też: BigDecimal / domyślnie 1
         s.setScore(parseScoreOrDefault(req.score(), BigDecimal.ONE));
-        String note = req.reviewNote();
-        if (note == null || note.isBlank()) note = "Brak pracy w terminie.";
-        s.setReviewNote(note);
+        s.setReviewNote(missingNote(req.reviewNote()));
         s.setStatus(SubmissionStatus.GRADED);
 
         submissionRepo.save(s);
+        events.publish(s);
     return ResponseEntity.created(Objects.requireNonNull(URI.create("/api/submissions/" + s.getId()))).body(toDto(s));
     }
 
+    // NAUCZYCIEL: „brak pracy” dla całego zadania – każdy przydzielony bez zgłoszenia, którego termin minął
+    @PostMapping("/grade-missing-all")
+    public ResponseEntity<Map<String, Object>> gradeMissingAll(@RequestBody GradeMissingAllRequest req) {
+        if (req.assignmentId() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long teacherId = req.teacherId() != null ? req.teacherId() : currentUserId();
+        var assignment = assignmentRepo.findById(req.assignmentId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "ASSIGNMENT_NOT_FOUND"));
+        checkTeacherOwner(assignment, teacherId);
+
+        var rows = submissionRepo.insertGradedForMissing(req.assignmentId(),
+                parseScoreOrDefault(req.score(), BigDecimal.ONE), missingNote(req.reviewNote()));
+        // INSERT już zatwierdzony (transakcja repozytorium) – powiadomienia jak przy ocenie pojedynczej
+        Long ownerId = assignment.getTeacher() == null ? null : assignment.getTeacher().getId();
+        String at = OffsetDateTime.now().toString();
+        for (Object[] r : rows) {
+            events.publish(ownerId, new SubmissionEvents.Event(((Number) r[0]).longValue(), req.assignmentId(),
+                    ((Number) r[1]).longValue(), SubmissionStatus.GRADED.name(), at));
+        }
+        return ResponseEntity.ok(Map.of("assignmentId", req.assignmentId(), "graded", rows.size()));
+    }
+
+    private static String missingNote(String note) {
+        return (note == null || note.isBlank()) ? "Brak pracy w terminie." : note;
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id,
                                        @RequestParam(required = false) Long studentId) {
@@ -1,43 +1,134 @@
 package org.example.api;
 
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.api.dto.BulkProvisionRequest;
 import org.example.api.dto.UserDto;
 import org.example.model.UserRole;
+import org.example.repo.GroupRepository;
 import org.example.repo.UserRepository;
+import org.example.service.ContentCache;
+import org.example.service.GroupRosters;
+import org.example.service.StudentProvisioner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
     private final UserRepository repo;
+    private final GroupRepository groups;
+    private final StudentProvisioner provisioner;
+    private final ContentCache contentCache;
+    private final GroupRosters rosters;
 
-    public UserController(UserRepository repo) {
+    private static final int MAX_BULK = 5000;
+
+    public UserController(UserRepository repo, GroupRepository groups, StudentProvisioner provisioner,
+                          ContentCache contentCache, GroupRosters rosters) {
         this.repo = repo;
+        this.groups = groups;
+        this.provisioner = provisioner;
+        this.contentCache = contentCache;
+        this.rosters = rosters;
+    }
+
+    // POST /api/users/bulk { students: [{email, name, password?}], groupId? } -> plik CSV z danymi logowania
+    // (email, name, password, status, id); hasło tylko dla utworzonych kont
+    @PostMapping("/bulk")
+    public void bulkCreate(@RequestBody BulkProvisionRequest req, HttpServletResponse response) throws IOException {
+        if (req.students() == null || req.students().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "NO_STUDENTS");
+        }
+        if (req.students().size() > MAX_BULK) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "TOO_MANY_STUDENTS");
+        }
+        if (req.groupId() != null && !groups.existsById(req.groupId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "GROUP_NOT_FOUND");
+        }
+
+        var accounts = provisioner.provision(req.students(), req.groupId());
+        if (req.groupId() != null) {
+            var created = accounts.stream().filter(a -> "CREATED".equals(a.status())).map(a -> a.id()).toList();
+            if (!created.isEmpty()) {
+                contentCache.invalidateAssignees();
+                rosters.invalidate(req.groupId(), created);
+            }
+        }
+
+        response.setContentType("text/csv");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"accounts.csv\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store"); // hasła w treści
+        try (Writer w = response.getWriter()) {
+            w.write("email,name,password,status,id\n");
+            for (var a : accounts) {
+                w.write(csv(a.email()) + "," + csv(a.name()) + "," + csv(a.password()) + ","
+                        + a.status() + "," + (a.id() == null ? "" : a.id()) + "\n");
+            }
+        }
     }
 
-    // GET /api/users?role=STUDENT&q=jan
+    // pole CSV: cudzysłów przy separatorach; '=', '+', '-', '@' na początku – z apostrofem (arkusze)
+    // (hasła takiego początku mieć nie mogą – BulkProvisionRequest.Student – więc zawsze wychodzą bez zmian)
+    private static String csv(String v) {
+        if (v == null) return "";
+        if (!v.isEmpty() && "=+-@".indexOf(v.charAt(0)) >= 0) v = "'" + v;
+        if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+            return "\"" + v.replace("\"", "\"\"") + "\"";
+        }
+        return v;
+    }
+
+    // GET /api/users?role=STUDENT&q=jan[&limit=20]
+    // z q: wyszukiwanie w bazie (indeksy trigramowe), najlepsze dopasowania pierwsze, najwyżej `limit` wyników;
+    // q krótsze niż 3 znaki – tylko po początku imienia/e-maila (searchPrefix);
+    // bez q: lista (po roli) jak dotąd, limit tylko jeśli podany
     @GetMapping
     public List<UserDto> list(
             @RequestParam(required = false) String role,
-            @RequestParam(required = false, name = "q") String query
+            @RequestParam(required = false, name = "q") String query,
+            @RequestParam(required = false) Integer limit
     ) {
-        var all = (role != null && role.equalsIgnoreCase("STUDENT"))
-                ? repo.findAll().stream().filter(u -> u.getRole() == UserRole.STUDENT).toList()
-                : repo.findAll();
-
+        UserRole r = parseRole(role);
         if (query == null || query.isBlank()) {
-            return all.stream().map(UserDto::from).toList();
-        }
-        String q = query.toLowerCase();
-        return all.stream()
-                .filter(u ->
-                        (u.getEmail() != null && u.getEmail().toLowerCase().contains(q)) ||
-                                (u.getName()  != null && u.getName().toLowerCase().contains(q))
-                )
-                .map(UserDto::from)
+            var all = r != null ? repo.findByRole(r) : repo.findAll();
+            var stream = all.stream().map(UserDto::from);
+            return limit != null ? stream.limit(Math.max(1, Math.min(limit, MAX_SEARCH))).toList() : stream.toList();
+        }
+
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        String esc = q.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        int n = limit == null ? SEARCH_PAGE : Math.max(1, Math.min(limit, MAX_SEARCH));
+        String roleName = r == null ? null : r.name();
+        var rows = q.codePointCount(0, q.length()) < MIN_TRIGRAM_QUERY
+                ? repo.searchPrefix(esc + "%", roleName, n) // 1–2 znaki: bez trigramów – tylko początek imienia/e-maila
+                : repo.search(q, "%" + esc + "%", esc + "%", "% " + esc + "%", roleName, n);
+        return rows.stream()
+                .map(row -> new UserDto(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                        UserRole.valueOf((String) row[3])))
                 .toList();
     }
+
+    private static final int SEARCH_PAGE = 20;
+    private static final int MAX_SEARCH = 100;
+    private static final int MIN_TRIGRAM_QUERY = 3;
+
+    private static UserRole parseRole(String role) {
+        if (role == null || role.isBlank()) return null;
+        try {
+            return UserRole.valueOf(role.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "BAD_ROLE");
+        }
+    }
     @GetMapping("/{id}")
     public UserDto one(@PathVariable Long id) {
         var u = repo.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
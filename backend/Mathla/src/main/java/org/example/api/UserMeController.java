@@ -6,6 +6,8 @@ import org.example.api.dto.UserMeResponse;
 import org.example.config.JwtAuthFilter;
 import org.example.model.User;
 import org.example.repo.UserRepository;
+import org.example.service.ContentCache;
+import org.example.service.GroupRosters;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -19,10 +21,15 @@ public class UserMeController {
 
     private final UserRepository users;
     private final PasswordEncoder passwordEncoder;
+    private final ContentCache contentCache;
+    private final GroupRosters rosters;
 
-    public UserMeController(UserRepository users, PasswordEncoder passwordEncoder) {
+    public UserMeController(UserRepository users, PasswordEncoder passwordEncoder, ContentCache contentCache,
+                            GroupRosters rosters) {
         this.users = users;
         this.passwordEncoder = passwordEncoder;
+        this.contentCache = contentCache;
+        this.rosters = rosters;
     }
 
     /** Pobiera bieżącego użytkownika korzystając z principal ustawionego w JwtAuthFilter. */
@@ -76,6 +83,8 @@ public class UserMeController {
             }
         }
         users.save(u);
+        contentCache.invalidateAll(); // imię/e-mail nauczyciela w odpowiedziach zadań
+        rosters.invalidateAll();      // … i w składach grup
         return new UserMeResponse(u.getId(), u.getName(), u.getEmail());
     }
 
@@ -0,0 +1,9 @@
+package org.example.api.dto;
+
+/** Łatka odpowiedzi: zastąp {@code deleteCount} znaków od {@code offset} tekstem {@code insert}. */
+public record AnswerPatchRequest(
+        Long version,        // wersja, do której odnosi się łatka
+        Integer offset,      // pozycja w znakach Unicode (od 0)
+        Integer deleteCount, // ile znaków usunąć (domyślnie 0)
+        String insert        // co wstawić (domyślnie "")
+) {}
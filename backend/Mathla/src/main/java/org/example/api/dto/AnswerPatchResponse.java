@@ -0,0 +1,3 @@
+package org.example.api.dto;
+
+public record AnswerPatchResponse(Long id, Long version) {}
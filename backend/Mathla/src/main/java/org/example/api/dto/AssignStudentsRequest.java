@@ -5,5 +5,6 @@ import java.util.List;
 
 public record AssignStudentsRequest(
         List<Long> studentIds,
-        String dueAt // ISO-8601 lub null, np. 2025-10-24T01:24:00Z
+        String dueAt, // ISO-8601 lub null, np. 2025-10-24T01:24:00Z
+        List<Long> groupIds // opcjonalnie: całe grupy (członkowie łączeni ze studentIds)
 ) {}
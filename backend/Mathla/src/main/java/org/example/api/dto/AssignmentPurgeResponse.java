@@ -0,0 +1,14 @@
+package org.example.api.dto;
+
+/** Postęp usuwania zadania: ile wierszy już skasowano; done = zadanie usunięte całkowicie. */
+public record AssignmentPurgeResponse(
+        Long assignmentId,
+        String requestedAt,
+        String finishedAt,
+        boolean done,
+        long formulas,
+        long revisions,
+        long submissions,
+        long links,
+        long problems
+) {}
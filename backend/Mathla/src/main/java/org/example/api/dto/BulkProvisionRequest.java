@@ -0,0 +1,19 @@
+package org.example.api.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+import java.util.List;
+
+public record BulkProvisionRequest(
+        List<Student> students,
+        Long groupId                 // opcjonalnie: od razu zapisz nowe konta do tej grupy
+) {
+    // reguły e-maila jak w RegisterRequest; sprawdzane per wiersz w StudentProvisioner (zły wiersz → INVALID, nie 400 dla całości).
+    // Hasło nie może zaczynać się od '=', '+', '-', '@' – w CSV z danymi logowania takie pole dostałoby apostrof
+    // (ochrona arkuszy) i przestałoby pasować do zapisanego hasła; taki wiersz → INVALID_PASSWORD
+    public record Student(@Email @NotBlank String email,
+                          String name,
+                          @Pattern(regexp = "(?s)(?![=+\\-@]).*") String password) {} // password null → wygenerowane
+}
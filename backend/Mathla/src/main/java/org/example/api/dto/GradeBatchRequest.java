@@ -0,0 +1,17 @@
+package org.example.api.dto;
+
+import java.util.List;
+
+public record GradeBatchRequest(
+        Long teacherId,
+        Boolean teacherOverride,   // domyślne dla pozycji, które nie ustawiają własnego
+        List<Item> items
+) {
+    public record Item(
+            Long id,
+            String score,
+            String status,         // "DRAFT" = retake, jak w /grade
+            String reviewNote,
+            Boolean teacherOverride
+    ) {}
+}
@@ -0,0 +1,20 @@
+package org.example.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatusCode;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GradeBatchResult(
+        Long id,
+        int status,                    // kod HTTP, jaki dałoby pojedyncze /grade
+        String code,                   // null gdy OK
+        SubmissionResponse submission  // null gdy błąd
+) {
+    public static GradeBatchResult ok(SubmissionResponse s) {
+        return new GradeBatchResult(s.id(), 200, null, s);
+    }
+
+    public static GradeBatchResult failed(Long id, HttpStatusCode status, String reason) {
+        return new GradeBatchResult(id, status.value(), reason == null ? "ERROR" : reason, null);
+    }
+}
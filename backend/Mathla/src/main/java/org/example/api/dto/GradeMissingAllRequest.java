@@ -0,0 +1,11 @@
+package org.example.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GradeMissingAllRequest(
+        Long assignmentId,
+        String score,       // domyślnie 1
+        String reviewNote,  // domyślnie „Brak pracy w terminie.”
+        Long teacherId
+) {}
@@ -0,0 +1,20 @@
+package org.example.api.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dziennik grupy w postaci zwartej: słowniki kolumnowe uczniów i zadań + komórki jako tablice.
+ *
+ * {@code students} = {"id":[…], "name":[…], "email":[…]}, {@code assignments} = {"id":[…], "title":[…]};
+ * komórka = [indeks ucznia, indeks zadania, indeks statusu, ocena, termin efektywny, ostatnie zgłoszenie, liczba ocenionych]
+ * (kolejność pól w {@code cellColumns}). Komórki tylko dla par uczeń–zadanie, które istnieją (przydział).
+ */
+public record GradebookResponse(
+        Long groupId,
+        Map<String, List<?>> students,
+        Map<String, List<?>> assignments,
+        List<String> statuses,
+        List<String> cellColumns,
+        List<Object[]> cells
+) {}
@@ -0,0 +1,6 @@
+package org.example.api.dto;
+
+public record ProblemBodyResponse(
+        String hash,         // sha256(treść w UTF-8), hex
+        String content
+) {}
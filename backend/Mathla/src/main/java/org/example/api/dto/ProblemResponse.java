@@ -5,6 +5,7 @@ public record ProblemResponse(
         Long assignmentId,
         Long authorId,       // może być null
         String content,
+        String bodyHash,     // skrót treści – klucz GET /api/problem-bodies/{hash}
         String format,       // nazwa enuma
         String createdAt
 ) {}
@@ -0,0 +1,4 @@
+package org.example.api.dto;
+
+/** Różnica dwóch rewizji jako jeden splice (jak łatka autosave): od offset usuń deleteCount znaków, wstaw insert. */
+public record RevisionDiffResponse(Integer from, Integer to, Integer offset, Integer deleteCount, String insert) {}
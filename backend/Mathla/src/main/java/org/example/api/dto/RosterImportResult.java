@@ -0,0 +1,17 @@
+package org.example.api.dto;
+
+import java.util.List;
+
+// wynik importu składu z pliku: added/duplicates/missing jak w AddMembersResult,
+// rejected – wiersze, których nie da się przypisać do żadnego id (numer linii pliku + powód);
+// error != null – import przerwany (READ_FAILED | WRITE_FAILED), listy obejmują to, co zapisano do tego miejsca
+public record RosterImportResult(
+        int rows,
+        List<Long> added,
+        List<Long> duplicates,
+        List<Long> missing,
+        List<Rejected> rejected,
+        String error
+) {
+    public record Rejected(int line, String value, String reason) {} // NO_EMAIL | UNKNOWN_EMAIL | NOT_STUDENT
+}
@@ -0,0 +1,31 @@
+package org.example.api.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Panel ucznia w jednej odpowiedzi: liczniki, grupy i zadania ze statusem, terminem efektywnym i oceną.
+ * Status jak w widokach ucznia: GRADED / SUBMITTED / OVERDUE / DRAFT / NOT_STARTED.
+ */
+public record StudentDashboardResponse(
+        Long studentId,
+        String generatedAt,
+        Counts counts,
+        List<GroupRef> groups,
+        List<Item> assignments
+) {
+    public record Counts(int assigned, int todo, int overdue, int submitted, int graded, int groups) {}
+
+    public record GroupRef(Long id, String name) {}
+
+    public record Item(
+            Long id,
+            String title,
+            String teacherName,
+            String dueAt,           // termin efektywny (per-uczeń → globalny)
+            String status,
+            BigDecimal score,
+            Long submissionId,
+            String submittedAt
+    ) {}
+}
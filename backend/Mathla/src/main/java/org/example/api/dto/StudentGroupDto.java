@@ -0,0 +1,11 @@
+package org.example.api.dto;
+
+import java.util.List;
+
+// grupa ucznia razem z nauczycielem i składem (GET /api/groups/of-student/{sid})
+public record StudentGroupDto(
+        Long id,
+        String name,
+        SimpleUserDto teacher,
+        List<SimpleUserDto> members
+) {}
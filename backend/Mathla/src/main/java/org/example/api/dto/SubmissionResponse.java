@@ -16,5 +16,6 @@ public record SubmissionResponse(
         String score,
         String status,
         String createdAt,
-        String reviewNote
+        String reviewNote,
+        Long version                // baza dla PATCH /{id}/answer
 ) {}
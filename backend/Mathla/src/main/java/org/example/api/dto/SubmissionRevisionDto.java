@@ -0,0 +1,3 @@
+package org.example.api.dto;
+
+public record SubmissionRevisionDto(Integer revNo, String kind, String reason, String createdAt) {}
@@ -0,0 +1,3 @@
+package org.example.api.dto;
+
+public record SubmissionRevisionResponse(Long submissionId, Integer revNo, String reason, String createdAt, String textAnswer) {}
@@ -3,5 +3,6 @@ package org.example.api.dto;
 
 public record UpdateSubmissionRequest(
         String textAnswer,  // opcjonalnie
-        String status       // opcjonalnie: "DRAFT" | "SUBMITTED" | "GRADED"
+        String status,      // opcjonalnie: "DRAFT" | "SUBMITTED" | "GRADED"
+        Long version        // opcjonalnie: wersja, na której pracował klient (inaczej 409)
 ) {}
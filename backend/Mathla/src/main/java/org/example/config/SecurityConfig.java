@@ -1,5 +1,6 @@
 package org.example.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -37,6 +38,8 @@ public class SecurityConfig {
                 .cors(Customizer.withDefaults())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // ponowne wejście (ASYNC) po zakończeniu SSE/strumieni – autoryzacja była przy pierwszym wejściu
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers("/api/health", "/api/auth/**").permitAll()
 
@@ -60,15 +63,23 @@ public class SecurityConfig {
 
                         // TEMP: relax to authenticated() for debugging 403 source; revert to hasRole("TEACHER") later
                         .requestMatchers(HttpMethod.PUT, "/api/submissions/*/grade").authenticated()
+                        .requestMatchers(HttpMethod.PUT, "/api/submissions/grade-batch").hasRole("TEACHER")
                         .requestMatchers(HttpMethod.POST, "/api/submissions/grade-missing").hasRole("TEACHER")
+                        .requestMatchers(HttpMethod.POST, "/api/submissions/grade-missing-all").hasRole("TEACHER")
                         .requestMatchers(HttpMethod.PUT, "/api/submissions/*/submit").hasRole("STUDENT")
+                        .requestMatchers(HttpMethod.PATCH, "/api/submissions/*/answer").hasRole("STUDENT")
                         .requestMatchers(HttpMethod.DELETE, "/api/submissions/*/by-teacher").hasRole("TEACHER")
                         .requestMatchers(HttpMethod.POST, "/api/submissions/start").hasAnyRole("STUDENT","TEACHER")
+                        .requestMatchers(HttpMethod.GET, "/api/submissions/events").hasRole("TEACHER")
                         .requestMatchers(HttpMethod.GET, "/api/submissions/**").authenticated()
                         .requestMatchers(HttpMethod.POST, "/api/submissions/**").hasAnyRole("STUDENT","TEACHER")
                         .requestMatchers(HttpMethod.PUT, "/api/submissions/**").hasAnyRole("STUDENT","TEACHER")
                         .requestMatchers(HttpMethod.DELETE, "/api/submissions/**").hasAnyRole("STUDENT","TEACHER")
 
+                        .requestMatchers(HttpMethod.POST, "/api/users/bulk").hasAnyRole("TEACHER","ADMIN")
+
+                        .requestMatchers(HttpMethod.GET, "/api/students/*/dashboard").hasAnyRole("STUDENT","TEACHER")
+                        .requestMatchers(HttpMethod.GET, "/api/groups/*/gradebook").hasRole("TEACHER")
                         .requestMatchers(HttpMethod.GET, "/api/groups/**").hasAnyRole("STUDENT","TEACHER")
                         .requestMatchers(HttpMethod.POST, "/api/groups/**").hasRole("TEACHER")
                         .requestMatchers(HttpMethod.PUT, "/api/groups/**").hasRole("TEACHER")
@@ -90,8 +101,8 @@ public class SecurityConfig {
         // w dev może zostać *, w prod lepiej podać konkretny origin
         cfg.setAllowedOriginPatterns(List.of("*"));
         cfg.setAllowedMethods(List.of("GET","POST","PUT","PATCH","DELETE","OPTIONS"));
-        cfg.setAllowedHeaders(List.of("Authorization","Content-Type","Accept","X-Requested-With"));
-        cfg.setExposedHeaders(List.of("Authorization"));
+        cfg.setAllowedHeaders(List.of("Authorization","Content-Type","Accept","X-Requested-With","Idempotency-Key"));
+        cfg.setExposedHeaders(List.of("Authorization", "X-Next-Cursor", "Retry-After", "Idempotent-Replayed"));
         cfg.setAllowCredentials(false);
 
         var src = new UrlBasedCorsConfigurationSource();
@@ -1,9 +1,14 @@
 package org.example.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
+
 import java.time.OffsetDateTime;
 
+// usunięte (deleted_at) czekają na AssignmentPurger – niewidoczne dla findById i zapytań, które dołączają tabelę
+// assignments; zapytania filtrujące tylko po FK (np. p.assignment.id) muszą dodać „a.deletedAt is null” jawnie
 @Entity @Table(name = "assignments")
+@SQLRestriction("deleted_at IS NULL")
 public class Assignment {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -23,6 +28,15 @@ public class Assignment {
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt = OffsetDateTime.now();
 
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt = OffsetDateTime.now(); // ETag / Last-Modified
+
+    @Column(name = "deleted_at")
+    private OffsetDateTime deletedAt;
+
+    @PreUpdate
+    void touch() { updatedAt = OffsetDateTime.now(); }
+
     // gettery/settery
     public Long getId() { return id; }
     public User getTeacher() { return teacher; }
@@ -35,4 +49,5 @@ public class Assignment {
     public void setDueAt(OffsetDateTime dueAt) { this.dueAt = dueAt; }
     public OffsetDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
 }
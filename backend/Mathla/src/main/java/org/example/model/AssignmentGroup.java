@@ -0,0 +1,37 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/** Przydział zadania całej grupie – obecni i przyszli członkowie grupy mają to zadanie. */
+@Entity
+@Table(
+        name = "assignment_groups",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"assignment_id","group_id"})
+)
+public class AssignmentGroup {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY) @JoinColumn(name = "assignment_id")
+    private Assignment assignment;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY) @JoinColumn(name = "group_id")
+    private Group group;
+
+    // termin dla całej grupy (null = termin zadania); wiersz assignment_students ucznia ma pierwszeństwo
+    @Column(name = "due_at")
+    private OffsetDateTime dueAt;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+
+    public Long getId() { return id; }
+    public Assignment getAssignment() { return assignment; }
+    public void setAssignment(Assignment assignment) { this.assignment = assignment; }
+    public Group getGroup() { return group; }
+    public void setGroup(Group group) { this.group = group; }
+    public OffsetDateTime getDueAt() { return dueAt; }
+    public void setDueAt(OffsetDateTime dueAt) { this.dueAt = dueAt; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+}
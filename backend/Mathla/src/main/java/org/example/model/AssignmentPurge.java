@@ -0,0 +1,51 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/** Postęp usuwania zadania (AssignmentPurger): liczniki usuniętych wierszy, finishedAt = koniec. */
+@Entity
+@Table(name = "assignment_purges")
+public class AssignmentPurge {
+
+    @Id
+    @Column(name = "assignment_id")
+    private Long assignmentId;
+
+    @Column(name = "requested_at", nullable = false)
+    private OffsetDateTime requestedAt = OffsetDateTime.now();
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+
+    @Column(nullable = false)
+    private long formulas;
+
+    @Column(nullable = false)
+    private long revisions;
+
+    @Column(nullable = false)
+    private long submissions;
+
+    @Column(nullable = false)
+    private long links;
+
+    @Column(nullable = false)
+    private long problems;
+
+    public Long getAssignmentId() { return assignmentId; }
+    public void setAssignmentId(Long assignmentId) { this.assignmentId = assignmentId; }
+    public OffsetDateTime getRequestedAt() { return requestedAt; }
+    public OffsetDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(OffsetDateTime finishedAt) { this.finishedAt = finishedAt; }
+    public long getFormulas() { return formulas; }
+    public void addFormulas(long n) { this.formulas += n; }
+    public long getRevisions() { return revisions; }
+    public void addRevisions(long n) { this.revisions += n; }
+    public long getSubmissions() { return submissions; }
+    public void addSubmissions(long n) { this.submissions += n; }
+    public long getLinks() { return links; }
+    public void addLinks(long n) { this.links += n; }
+    public long getProblems() { return problems; }
+    public void addProblems(long n) { this.problems += n; }
+}
@@ -0,0 +1,46 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/** Zapamiętana odpowiedź na żądanie z nagłówkiem Idempotency-Key. */
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "scope_key", length = 400)
+    private String scopeKey;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private int status;
+
+    @Column(columnDefinition = "text")
+    private String location;
+
+    @Column(columnDefinition = "text", nullable = false)
+    private String body;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    public String getScopeKey() { return scopeKey; }
+    public void setScopeKey(String scopeKey) { this.scopeKey = scopeKey; }
+    public String getFingerprint() { return fingerprint; }
+    public void setFingerprint(String fingerprint) { this.fingerprint = fingerprint; }
+    public int getStatus() { return status; }
+    public void setStatus(int status) { this.status = status; }
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public OffsetDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(OffsetDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -18,9 +18,10 @@ public class Problem {
     @ManyToOne(fetch = FetchType.LAZY)
     private User author;
 
-    // właściwa treść problemu
-    @Column(name = "content", columnDefinition = "text", nullable = false)
-    private String content;
+    // właściwa treść problemu – wspólna dla wszystkich problemów o tej samej treści (ProblemBodies.intern)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "body_hash", nullable = false)
+    private ProblemBody body;
 
     // format treści
     @Enumerated(EnumType.STRING)
@@ -30,6 +31,12 @@ public class Problem {
     @Column(nullable = false)
     private OffsetDateTime createdAt = OffsetDateTime.now();
 
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt = OffsetDateTime.now(); // ETag / Last-Modified
+
+    @PreUpdate
+    void touch() { updatedAt = OffsetDateTime.now(); }
+
     public Long getId() { return id; }
     public Assignment getAssignment() { return assignment; }
     public void setAssignment(Assignment assignment) { this.assignment = assignment; }
@@ -37,12 +44,16 @@ public class Problem {
     public User getAuthor() { return author; }
     public void setAuthor(User author) { this.author = author; }
 
-    public String getContent() { return content; }
-    public void setContent(String content) { this.content = content; }
+    public ProblemBody getBody() { return body; }
+    public void setBody(ProblemBody body) { this.body = body; }
+    public String getBodyHash() { return body != null ? body.getHash() : null; }
+    public String getContent() { return body != null ? body.getContent() : null; }
 
     public ProblemFormat getFormat() { return format; }
     public void setFormat(ProblemFormat format) { this.format = format; }
 
     public OffsetDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
 }
@@ -0,0 +1,32 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+
+/** Treść problemu adresowana skrótem SHA-256 – współdzielona przez wszystkie problemy o tej samej treści. */
+@Entity
+@Immutable
+@Table(name = "problem_bodies")
+public class ProblemBody {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(columnDefinition = "text", nullable = false)
+    private String content;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    // odświeżane przy każdym użyciu (ProblemBodyRepository.upsert) – chroni świeże treści przed sprzątaniem
+    @Column(name = "last_used_at", nullable = false)
+    private OffsetDateTime lastUsedAt;
+
+    public String getHash() { return hash; }
+    public String getContent() { return content; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+    public OffsetDateTime getLastUsedAt() { return lastUsedAt; }
+}
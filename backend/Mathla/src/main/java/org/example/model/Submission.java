@@ -36,6 +36,10 @@ public class Submission {
     @Column(length = 1000)
     private String reviewNote;                // notatka nauczyciela (opcjonalnie)
 
+    @Version
+    @Column(nullable = false)
+    private Long version;                     // rośnie przy każdej zmianie (autosave, ocena, auto-submit)
+
     // get/set
     public BigDecimal getScore() { return score; }
     public void setScore(BigDecimal score) { this.score = score; }
@@ -45,6 +49,8 @@ public class Submission {
 
     public String getReviewNote() { return reviewNote; }
     public void setReviewNote(String reviewNote) { this.reviewNote = reviewNote; }
+
+    public Long getVersion() { return version; }
     // gettery/settery
     public Long getId() { return id; }
     public Assignment getAssignment() { return assignment; }
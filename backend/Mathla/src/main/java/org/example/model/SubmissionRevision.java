@@ -0,0 +1,62 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Wpis dziennika zmian odpowiedzi. SNAPSHOT trzyma cały tekst w {@code body},
+ * DELTA – tylko splice względem poprzedniej rewizji (pos, delLen, body = wstawiany tekst).
+ */
+@Entity
+@Table(
+        name = "submission_revisions",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"submission_id","rev_no"})
+)
+public class SubmissionRevision {
+    public enum Kind { SNAPSHOT, DELTA }
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "submission_id", nullable = false)
+    private Long submissionId;
+
+    @Column(name = "rev_no", nullable = false)
+    private Integer revNo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8, nullable = false)
+    private Kind kind;
+
+    @Column(nullable = false)
+    private Integer pos = 0;
+
+    @Column(name = "del_len", nullable = false)
+    private Integer delLen = 0;
+
+    @Column(columnDefinition = "text", nullable = false)
+    private String body = "";
+
+    @Column(length = 16, nullable = false)
+    private String reason;                    // CREATE / EDIT / PATCH / RETAKE
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+
+    public Long getId() { return id; }
+    public Long getSubmissionId() { return submissionId; }
+    public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
+    public Integer getRevNo() { return revNo; }
+    public void setRevNo(Integer revNo) { this.revNo = revNo; }
+    public Kind getKind() { return kind; }
+    public void setKind(Kind kind) { this.kind = kind; }
+    public Integer getPos() { return pos; }
+    public void setPos(Integer pos) { this.pos = pos; }
+    public Integer getDelLen() { return delLen; }
+    public void setDelLen(Integer delLen) { this.delLen = delLen; }
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+}
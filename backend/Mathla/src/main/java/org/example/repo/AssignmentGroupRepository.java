@@ -0,0 +1,51 @@
+package org.example.repo;
+
+import org.example.model.AssignmentGroup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public interface AssignmentGroupRepository extends JpaRepository<AssignmentGroup, Long> {
+
+    // grupy przypisane do zadania – z liczbą członków, jednym zapytaniem
+    @Query("""
+            select new org.example.repo.AssignmentGroupRow(g.id, g.name, count(gs.id))
+              from AssignmentGroup ag join ag.group g
+              left join GroupStudent gs on gs.group = g
+             where ag.assignment.id = :assignmentId
+             group by g.id, g.name
+             order by g.name
+            """)
+    List<AssignmentGroupRow> findGroupRows(@Param("assignmentId") Long assignmentId);
+
+    // Zbiorczy przydział grup z terminem grupowym (null = termin zadania);
+    // RETURNING – faktycznie dodane (reszta już była). groupIds z SqlArrays.bigints(...).
+    @Transactional
+    @Query(value = """
+            INSERT INTO assignment_groups (assignment_id, group_id, due_at, created_at)
+            SELECT :assignmentId, x.group_id, CAST(:dueAt AS timestamptz), now()
+              FROM unnest(CAST(:groupIds AS bigint[])) AS x(group_id)
+            ON CONFLICT (assignment_id, group_id) DO NOTHING
+            RETURNING group_id
+            """, nativeQuery = true)
+    List<Long> insertMissing(@Param("assignmentId") Long assignmentId,
+                             @Param("groupIds") String groupIds,
+                             @Param("dueAt") OffsetDateTime dueAt);
+
+    // nadchodzące terminy grupowe (okno DeadlineSweeper)
+    @Query("select ag.dueAt from AssignmentGroup ag where ag.dueAt > :from and ag.dueAt <= :to")
+    List<OffsetDateTime> findDueAtBetween(@Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    @Transactional
+    @Modifying
+    int deleteByAssignment_IdAndGroup_Id(Long assignmentId, Long groupId);
+
+    @Transactional
+    @Modifying
+    int deleteByGroup_Id(Long groupId);
+}
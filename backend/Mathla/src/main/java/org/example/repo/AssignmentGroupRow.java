@@ -0,0 +1,4 @@
+package org.example.repo;
+
+/** Projekcja przydziału grupowego: grupa + aktualna liczba członków. */
+public record AssignmentGroupRow(Long groupId, String name, Long members) {}
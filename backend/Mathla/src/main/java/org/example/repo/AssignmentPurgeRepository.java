@@ -0,0 +1,77 @@
+package org.example.repo;
+
+import org.example.model.AssignmentPurge;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Usuwanie zadań paczkami (AssignmentPurger). Każdy DELETE kasuje najwyżej {@code :limit} wierszy
+ * wybranych po id – krótkie transakcje i blokady zamiast jednej długiej; 0 = ten rodzaj już wyczyszczony.
+ * Wywołujący odpowiada za transakcję (paczka + licznik postępu razem).
+ */
+public interface AssignmentPurgeRepository extends JpaRepository<AssignmentPurge, Long> {
+
+    @Query("select p.assignmentId from AssignmentPurge p where p.finishedAt is null order by p.requestedAt")
+    List<Long> findOpenIds();
+
+    @Modifying
+    @Query(value = "UPDATE assignments SET deleted_at = now() WHERE id = :id AND deleted_at IS NULL",
+            nativeQuery = true)
+    int markDeleted(@Param("id") Long assignmentId);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM formulas WHERE id IN (
+                SELECT f.id FROM formulas f
+                 WHERE f.submission_id IN (SELECT s.id FROM submissions s WHERE s.assignment_id = :id)
+                    OR f.problem_id IN (SELECT p.id FROM problems p WHERE p.assignment_id = :id)
+                 LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteFormulas(@Param("id") Long assignmentId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM submission_revisions WHERE id IN (
+                SELECT r.id FROM submission_revisions r JOIN submissions s ON s.id = r.submission_id
+                 WHERE s.assignment_id = :id
+                 LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteRevisions(@Param("id") Long assignmentId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM submissions WHERE id IN (
+                SELECT s.id FROM submissions s WHERE s.assignment_id = :id LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteSubmissions(@Param("id") Long assignmentId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM assignment_students WHERE id IN (
+                SELECT l.id FROM assignment_students l WHERE l.assignment_id = :id LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteLinks(@Param("id") Long assignmentId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM assignment_groups WHERE id IN (
+                SELECT ag.id FROM assignment_groups ag WHERE ag.assignment_id = :id LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteGroupTargets(@Param("id") Long assignmentId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM problems WHERE id IN (
+                SELECT p.id FROM problems p WHERE p.assignment_id = :id LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteProblems(@Param("id") Long assignmentId, @Param("limit") int limit);
+
+    // na końcu sam wiersz zadania – tylko oznaczony (nic już się do niego nie odwołuje)
+    @Modifying
+    @Query(value = "DELETE FROM assignments WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int deleteAssignment(@Param("id") Long assignmentId);
+}
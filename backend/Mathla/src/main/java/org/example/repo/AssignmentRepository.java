@@ -1,9 +1,14 @@
 package org.example.repo;
 
 import org.example.model.Assignment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
 
@@ -11,4 +16,102 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     long countByTeacher_Id(Long teacherId);
 
     List<Assignment> findByTeacher_Id(Long teacherId);
+
+    // ===== Listing projekcją: zadanie + nauczyciel + pierwszy problem jednym zapytaniem =====
+    String ROW_COLUMNS = """
+            a.id, t.id, t.name, t.email, a.title, a.description, a.dueAt, a.createdAt,
+            p.format, b.content, a.updatedAt, p.updatedAt""";
+
+    String ROW_JOINS = """
+             join a.teacher t
+             left join Problem p on p.assignment = a
+                   and p.id = (select min(p2.id) from Problem p2 where p2.assignment = a)
+             left join p.body b
+            """;
+
+    // Katalog: filtry opcjonalne (null = bez filtra), keyset po id ASC (a.id > :after), limit przez Pageable.
+    // :title to gotowy wzorzec LIKE (małe litery, z escapowaniem – patrz AssignmentController.titlePattern).
+    @Query("select new org.example.repo.AssignmentRow(" + ROW_COLUMNS + ") from Assignment a" + ROW_JOINS
+            + """
+              where a.id > :after
+                and (:teacherId is null or t.id = :teacherId)
+                and (:dueFrom is null or a.dueAt >= :dueFrom)
+                and (:dueTo is null or a.dueAt < :dueTo)
+                and (:hasDeadline is null
+                     or (:hasDeadline = true and a.dueAt is not null)
+                     or (:hasDeadline = false and a.dueAt is null))
+                and (:title is null or lower(a.title) like :title escape '\\')
+              order by a.id
+              """)
+    List<AssignmentRow> findCatalog(@Param("after") Long after,
+                                    @Param("teacherId") Long teacherId,
+                                    @Param("dueFrom") OffsetDateTime dueFrom,
+                                    @Param("dueTo") OffsetDateTime dueTo,
+                                    @Param("hasDeadline") Boolean hasDeadline,
+                                    @Param("title") String title,
+                                    Pageable page);
+
+    @Query("select new org.example.repo.AssignmentRow(" + ROW_COLUMNS + ") from Assignment a" + ROW_JOINS
+            + "where a.id = :id")
+    Optional<AssignmentRow> findRowById(@Param("id") Long id);
+
+    // termin grupowy ucznia: najpóźniejszy z grup, którym przydzielono zadanie (null = brak)
+    String GROUP_DUE = """
+            (select max(ag.dueAt) from AssignmentGroup ag, GroupStudent gs
+              where ag.assignment = a and gs.group = ag.group and gs.student.id = :studentId)""";
+
+    String STUDENT_DUE = "coalesce(l.dueAt, " + GROUP_DUE + ")";
+    String EFFECTIVE_DUE = "coalesce(l.dueAt, " + GROUP_DUE + ", a.dueAt)";
+
+    // Katalog ucznia – te same filtry, ale po terminie efektywnym (per-uczeń → grupowy → globalny);
+    // studentDueAt = termin z przydziału (indywidualny albo grupowy).
+    // Przydział indywidualny (l) albo przez grupę – wiersz l jest tylko przy indywidualnym przydziale/terminie.
+    @Query("select new org.example.repo.AssignmentRow(" + ROW_COLUMNS + ", " + STUDENT_DUE + ")"
+            + " from Assignment a" + ROW_JOINS
+            + """
+              left join AssignmentStudent l on l.assignment = a and l.student.id = :studentId
+              where (l.id is not null
+                     or exists (select 1 from AssignmentGroup ag, GroupStudent gs
+                                 where ag.assignment = a and gs.group = ag.group and gs.student.id = :studentId))
+                and a.id > :after
+                and (:teacherId is null or t.id = :teacherId)
+            """
+            + " and (:dueFrom is null or " + EFFECTIVE_DUE + " >= :dueFrom)"
+            + " and (:dueTo is null or " + EFFECTIVE_DUE + " < :dueTo)"
+            + " and (:hasDeadline is null"
+            + "      or (:hasDeadline = true and " + EFFECTIVE_DUE + " is not null)"
+            + "      or (:hasDeadline = false and " + EFFECTIVE_DUE + " is null))"
+            + """
+                and (:title is null or lower(a.title) like :title escape '\\')
+              order by a.id
+              """)
+    List<AssignmentRow> findCatalogForStudent(@Param("studentId") Long studentId,
+                                              @Param("after") Long after,
+                                              @Param("teacherId") Long teacherId,
+                                              @Param("dueFrom") OffsetDateTime dueFrom,
+                                              @Param("dueTo") OffsetDateTime dueTo,
+                                              @Param("hasDeadline") Boolean hasDeadline,
+                                              @Param("title") String title,
+                                              Pageable page);
+
+    // nadchodzące terminy globalne (okno DeadlineSweeper)
+    @Query("select a.dueAt from Assignment a where a.dueAt > :from and a.dueAt <= :to")
+    List<OffsetDateTime> findDueAtBetween(@Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    // termin efektywny (per-uczeń → grupowy → globalny) dla wielu par (assignment, student) naraz;
+    // parametry to równoległe tablice z SqlArrays.bigints(...)
+    @Query(value = """
+            SELECT x.assignment_id, x.student_id,
+                   COALESCE(l.due_at,
+                            (SELECT max(ag.due_at) FROM assignment_groups ag
+                               JOIN group_students gs ON gs.group_id = ag.group_id
+                              WHERE ag.assignment_id = x.assignment_id AND gs.student_id = x.student_id),
+                            a.due_at) AS due_at
+              FROM unnest(CAST(:assignmentIds AS bigint[]), CAST(:studentIds AS bigint[])) AS x(assignment_id, student_id)
+              JOIN assignments a ON a.id = x.assignment_id AND a.deleted_at IS NULL
+              LEFT JOIN assignment_students l
+                     ON l.assignment_id = x.assignment_id AND l.student_id = x.student_id
+            """, nativeQuery = true)
+    List<Object[]> findEffectiveDueAt(@Param("assignmentIds") String assignmentIds,
+                                      @Param("studentIds") String studentIds);
 }
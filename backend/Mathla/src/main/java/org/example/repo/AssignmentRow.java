@@ -0,0 +1,40 @@
+package org.example.repo;
+
+import org.example.model.ProblemFormat;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Projekcja listingu zadań: zadanie + nauczyciel + pierwszy problem (+ termin per-uczeń w widoku ucznia).
+ * {@code updatedAt}/{@code problemUpdatedAt} – do Last-Modified (nie trafiają do DTO).
+ */
+public record AssignmentRow(
+        Long id,
+        Long teacherId,
+        String teacherName,
+        String teacherEmail,
+        String title,
+        String description,
+        OffsetDateTime dueAt,
+        OffsetDateTime createdAt,
+        ProblemFormat problemFormat,
+        String problemContent,
+        OffsetDateTime updatedAt,
+        OffsetDateTime problemUpdatedAt,
+        OffsetDateTime studentDueAt
+) {
+    // wariant „globalny” (bez kontekstu ucznia)
+    public AssignmentRow(Long id, Long teacherId, String teacherName, String teacherEmail,
+                         String title, String description, OffsetDateTime dueAt, OffsetDateTime createdAt,
+                         ProblemFormat problemFormat, String problemContent,
+                         OffsetDateTime updatedAt, OffsetDateTime problemUpdatedAt) {
+        this(id, teacherId, teacherName, teacherEmail, title, description, dueAt, createdAt,
+                problemFormat, problemContent, updatedAt, problemUpdatedAt, null);
+    }
+
+    /** Najpóźniejsza zmiana treści (zadanie lub jego pierwszy problem). */
+    public OffsetDateTime lastModified() {
+        if (problemUpdatedAt == null || (updatedAt != null && updatedAt.isAfter(problemUpdatedAt))) return updatedAt;
+        return problemUpdatedAt;
+    }
+}
@@ -3,7 +3,12 @@ package org.example.repo;
 import org.example.model.AssignmentStudent;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,15 +18,75 @@ public interface AssignmentStudentRepository extends JpaRepository<AssignmentStu
 
     Optional<AssignmentStudent> findByAssignment_IdAndStudent_Id(Long assignmentId, Long studentId);
 
-    List<AssignmentStudent> findByStudent_Id(Long studentId);
+    // Czy uczeń ma zadanie: indywidualnie (assignment_students) albo przez grupę (assignment_groups → group_students)
+    // Zadanie oznaczone jako usunięte (deleted_at) nie jest już przydzielone nikomu.
+    @Query(value = """
+            SELECT EXISTS (SELECT 1 FROM assignments a WHERE a.id = :assignmentId AND a.deleted_at IS NULL)
+               AND (EXISTS (SELECT 1 FROM assignment_students l
+                             WHERE l.assignment_id = :assignmentId AND l.student_id = :studentId)
+                    OR EXISTS (SELECT 1 FROM assignment_groups ag
+                                 JOIN group_students gs ON gs.group_id = ag.group_id
+                                WHERE ag.assignment_id = :assignmentId AND gs.student_id = :studentId))
+            """, nativeQuery = true)
+    boolean isAssigned(@Param("assignmentId") Long assignmentId, @Param("studentId") Long studentId);
 
-    List<AssignmentStudent> findByAssignment_Id(Long assignmentId);
+    // Przydziały (obie formy) dla paczki par: [assignment_id, student_id] – nadzbiór, pary filtruje wywołujący.
+    // Parametry z SqlArrays.bigints(...).
+    @Query(value = """
+            SELECT l.assignment_id, l.student_id
+              FROM assignment_students l
+              JOIN assignments a ON a.id = l.assignment_id AND a.deleted_at IS NULL
+             WHERE l.assignment_id = ANY(CAST(:assignmentIds AS bigint[]))
+               AND l.student_id = ANY(CAST(:studentIds AS bigint[]))
+            UNION
+            SELECT ag.assignment_id, gs.student_id
+              FROM assignment_groups ag
+              JOIN assignments a ON a.id = ag.assignment_id AND a.deleted_at IS NULL
+              JOIN group_students gs ON gs.group_id = ag.group_id
+             WHERE ag.assignment_id = ANY(CAST(:assignmentIds AS bigint[]))
+               AND gs.student_id = ANY(CAST(:studentIds AS bigint[]))
+            """, nativeQuery = true)
+    List<Object[]> findPairs(@Param("assignmentIds") String assignmentIds,
+                             @Param("studentIds") String studentIds);
 
-    // Usuwamy wszystkie linki dla zadania (używane przy kasowaniu zadania)
-    @Modifying
-    void deleteByAssignment_Id(Long assignmentId);
+    // Zbiorczy przydział: jeden INSERT na paczkę uczniów; istniejące pary pomijamy (ON CONFLICT).
+    // RETURNING – faktycznie dodani (reszta to duplikaty). studentIds z SqlArrays.bigints(...).
+    @Transactional
+    @Query(value = """
+            INSERT INTO assignment_students (assignment_id, student_id, due_at, created_at)
+            SELECT :assignmentId, x.student_id, CAST(:dueAt AS timestamptz), now()
+              FROM unnest(CAST(:studentIds AS bigint[])) AS x(student_id)
+            ON CONFLICT (assignment_id, student_id) DO NOTHING
+            RETURNING student_id
+            """, nativeQuery = true)
+    List<Long> insertMissing(@Param("assignmentId") Long assignmentId,
+                             @Param("studentIds") String studentIds,
+                             @Param("dueAt") OffsetDateTime dueAt);
 
     // Usuwamy przydział zadania dla pojedynczego ucznia
     @Modifying
     int deleteByAssignment_IdAndStudent_Id(Long assignmentId, Long studentId);
+
+    // kto ma zadanie – indywidualnie lub przez grupę; termin per-uczeń, jeśli jest wiersz przydziału, inaczej grupowy.
+    // Zaczynamy od przydziałów tego zadania (oba źródła), dopiero potem users – bez przeglądania całej tabeli.
+    // Kolumny: id, name, email, due_at.
+    @Query(value = """
+            SELECT u.id, u.name, CAST(u.email AS text), COALESCE(max(x.own_due), max(x.group_due)) AS due_at
+              FROM (SELECT l.student_id, l.due_at AS own_due, CAST(NULL AS timestamptz) AS group_due
+                      FROM assignment_students l
+                     WHERE l.assignment_id = :assignmentId
+                    UNION ALL
+                    SELECT gs.student_id, CAST(NULL AS timestamptz), ag.due_at
+                      FROM assignment_groups ag
+                      JOIN group_students gs ON gs.group_id = ag.group_id
+                     WHERE ag.assignment_id = :assignmentId) x
+              JOIN users u ON u.id = x.student_id
+             GROUP BY u.id, u.name, u.email
+             ORDER BY u.id
+            """, nativeQuery = true)
+    List<Object[]> findAssigneeRows(@Param("assignmentId") Long assignmentId);
+
+    // nadchodzące terminy per-uczeń (okno DeadlineSweeper)
+    @Query("select l.dueAt from AssignmentStudent l where l.dueAt > :from and l.dueAt <= :to")
+    List<OffsetDateTime> findDueAtBetween(@Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
 }
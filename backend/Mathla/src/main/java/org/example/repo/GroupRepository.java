@@ -2,9 +2,95 @@ package org.example.repo;
 
 import org.example.model.Group;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface GroupRepository extends JpaRepository<Group, Long> {
     List<Group> findByTeacher_Id(Long teacherId);
+
+    // Składy grup (GroupRosters): jeden wiersz na członka, grupa bez członków → jeden wiersz z u.* = null.
+    // Kolumny: g.id, g.name, t.id, t.name, t.email, u.id, u.name, u.email; członkowie w kolejności dodania.
+    String ROSTER_SELECT = """
+            select g.id, g.name, t.id, t.name, t.email, u.id, u.name, u.email
+              from Group g
+              join g.teacher t
+              left join GroupStudent gs on gs.group = g
+              left join gs.student u
+            """;
+
+    @Query(ROSTER_SELECT + "where g.id = :groupId order by gs.id")
+    List<Object[]> findRosterRows(@Param("groupId") Long groupId);
+
+    // wszystkie grupy ucznia ze składami – jednym zapytaniem
+    @Query(ROSTER_SELECT
+            + "where g.id in (select x.group.id from GroupStudent x where x.student.id = :studentId) order by g.id, gs.id")
+    List<Object[]> findRosterRowsByStudent(@Param("studentId") Long studentId);
+
+    // Lista grup jednym zapytaniem: nauczyciel z joina, liczba członków z COUNT … GROUP BY.
+    // Filtry opcjonalne (null = bez filtra): grupy nauczyciela / grupy, do których należy uczeń.
+    @Query("""
+            select new org.example.repo.GroupRow(g.id, g.name, t.name, t.email, count(gs.id))
+              from Group g
+              join g.teacher t
+              left join GroupStudent gs on gs.group = g
+             where (:teacherId is null or t.id = :teacherId)
+               and (:studentId is null
+                    or exists (select 1 from GroupStudent x where x.group = g and x.student.id = :studentId))
+             group by g.id, g.name, t.name, t.email
+             order by g.id
+            """)
+    List<GroupRow> findRows(@Param("teacherId") Long teacherId, @Param("studentId") Long studentId);
+
+    // DZIENNIK GRUPY: uczniowie × zadania jednym zapytaniem.
+    // Kolumny: student_id, name, email, assignment_id, title, status, score, due_at (efektywny: per-uczeń → grupowy
+    // → globalny), last_at, graded.
+    // Przydział indywidualny albo przez dowolną grupę ucznia; uczeń bez zadań → jeden wiersz z assignment_id = NULL.
+    // Status jak w widokach ucznia: GRADED / SUBMITTED / OVERDUE / DRAFT / NOT_STARTED (z najnowszego zgłoszenia).
+    @Query(value = """
+            WITH members AS (
+                SELECT gs.student_id FROM group_students gs WHERE gs.group_id = :groupId
+            ), pairs AS (
+                SELECT l.assignment_id, l.student_id
+                  FROM assignment_students l JOIN members m ON m.student_id = l.student_id
+                UNION
+                SELECT ag.assignment_id, gs.student_id
+                  FROM assignment_groups ag
+                  JOIN group_students gs ON gs.group_id = ag.group_id
+                  JOIN members m ON m.student_id = gs.student_id
+            ), cells AS (
+                SELECT p.student_id, a.id, a.title, a.due_at
+                  FROM pairs p JOIN assignments a ON a.id = p.assignment_id AND a.deleted_at IS NULL
+                 WHERE CAST(:teacherId AS bigint) IS NULL OR a.teacher_id = CAST(:teacherId AS bigint)
+            ), gdue AS (
+                SELECT ag.assignment_id, gs.student_id, max(ag.due_at) AS due_at
+                  FROM assignment_groups ag
+                  JOIN group_students gs ON gs.group_id = ag.group_id
+                  JOIN members m ON m.student_id = gs.student_id
+                 GROUP BY ag.assignment_id, gs.student_id
+            ), subs AS (
+                SELECT s.assignment_id, s.student_id, max(s.id) AS last_id, max(s.created_at) AS last_at,
+                       count(*) FILTER (WHERE s.status = 'GRADED') AS graded
+                  FROM submissions s JOIN members m ON m.student_id = s.student_id
+                 GROUP BY s.assignment_id, s.student_id
+            )
+            SELECT u.id, u.name, u.email, a.id, a.title,
+                   CASE WHEN a.id IS NULL THEN NULL
+                        WHEN ls.status = 'GRADED' THEN 'GRADED'
+                        WHEN ls.status = 'SUBMITTED' THEN 'SUBMITTED'
+                        WHEN COALESCE(l.due_at, gd.due_at, a.due_at) < now() THEN 'OVERDUE'
+                        WHEN ls.id IS NOT NULL THEN 'DRAFT'
+                        ELSE 'NOT_STARTED' END,
+                   ls.score, COALESCE(l.due_at, gd.due_at, a.due_at), sub.last_at, COALESCE(sub.graded, 0)
+              FROM members m
+              JOIN users u ON u.id = m.student_id
+              LEFT JOIN cells a ON a.student_id = m.student_id
+              LEFT JOIN assignment_students l ON l.assignment_id = a.id AND l.student_id = m.student_id
+              LEFT JOIN gdue gd ON gd.assignment_id = a.id AND gd.student_id = m.student_id
+              LEFT JOIN subs sub ON sub.assignment_id = a.id AND sub.student_id = m.student_id
+              LEFT JOIN submissions ls ON ls.id = sub.last_id
+             ORDER BY lower(COALESCE(NULLIF(u.name, ''), u.email)), u.id, a.id
+            """, nativeQuery = true)
+    List<Object[]> findGradebook(@Param("groupId") Long groupId, @Param("teacherId") Long teacherId);
 }
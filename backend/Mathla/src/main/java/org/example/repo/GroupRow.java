@@ -0,0 +1,4 @@
+package org.example.repo;
+
+/** Projekcja listy grup: grupa + nauczyciel + liczba członków (jedno zapytanie, bez encji). */
+public record GroupRow(Long id, String name, String teacherName, String teacherEmail, long memberCount) {}
@@ -3,6 +3,8 @@ package org.example.repo;
 import org.example.model.GroupStudent;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -25,5 +27,25 @@ public interface GroupStudentRepository extends JpaRepository<GroupStudent, Long
     @Modifying
     long deleteByGroup_Id(Long groupId);
 
-    int countByGroup_Id(Long groupId);
+    // Zbiorcze dopisanie do grupy: jeden INSERT na paczkę; anty-join pomija istniejących członków
+    // (ON CONFLICT – tylko na wypadek równoległego dopisania). RETURNING – faktycznie dodani.
+    @Transactional
+    @Query(value = """
+            INSERT INTO group_students (group_id, student_id)
+            SELECT :groupId, x.student_id
+              FROM unnest(CAST(:studentIds AS bigint[])) AS x(student_id)
+             WHERE NOT EXISTS (SELECT 1 FROM group_students gs
+                                WHERE gs.group_id = :groupId AND gs.student_id = x.student_id)
+            ON CONFLICT (group_id, student_id) DO NOTHING
+            RETURNING student_id
+            """, nativeQuery = true)
+    List<Long> insertMissing(@Param("groupId") Long groupId, @Param("studentIds") String studentIds);
+
+    // grupy ucznia jako pary (id, nazwa) – bez encji, bezpieczne poza wątkiem żądania
+    @Query("""
+            select g.id, g.name from Group g
+            where exists (select 1 from GroupStudent gs where gs.group = g and gs.student.id = :studentId)
+            order by g.id
+            """)
+    List<Object[]> findGroupRefsByStudent(@Param("studentId") Long studentId);
 }
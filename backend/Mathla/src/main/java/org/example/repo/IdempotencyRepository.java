@@ -0,0 +1,33 @@
+package org.example.repo;
+
+import org.example.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+public interface IdempotencyRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Pierwszy zapis wygrywa – równoległy duplikat nie nadpisuje odpowiedzi
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO idempotency_keys (scope_key, fingerprint, status, location, body, created_at, expires_at)
+            VALUES (:scopeKey, :fingerprint, :status, :location, :body, now(), :expiresAt)
+            ON CONFLICT (scope_key) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("scopeKey") String scopeKey,
+                       @Param("fingerprint") String fingerprint,
+                       @Param("status") int status,
+                       @Param("location") String location,
+                       @Param("body") String body,
+                       @Param("expiresAt") OffsetDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
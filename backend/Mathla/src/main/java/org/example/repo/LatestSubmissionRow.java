@@ -0,0 +1,16 @@
+package org.example.repo;
+
+import org.example.model.SubmissionStatus;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/** Najnowsze zgłoszenie ucznia dla zadania – tylko pola potrzebne do statusu i oceny. */
+public record LatestSubmissionRow(
+        Long assignmentId,
+        Long submissionId,
+        SubmissionStatus status,
+        BigDecimal score,
+        OffsetDateTime createdAt,
+        OffsetDateTime submittedAt
+) {}
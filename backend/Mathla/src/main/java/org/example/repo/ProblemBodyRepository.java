@@ -0,0 +1,36 @@
+package org.example.repo;
+
+import org.example.model.ProblemBody;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ProblemBodyRepository extends JpaRepository<ProblemBody, String> {
+
+    // Wstawia treść, jeśli jej jeszcze nie ma; istniejącej tylko odświeża last_used_at
+    // (blokada wiersza + świeża data – równoległe sprzątanie sierot go nie skasuje).
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO problem_bodies (hash, content, created_at, last_used_at)
+            VALUES (:hash, :content, now(), now())
+            ON CONFLICT (hash) DO UPDATE SET last_used_at = now()
+            """, nativeQuery = true)
+    int upsert(@Param("hash") String hash, @Param("content") String content);
+
+    // Sieroty (żaden problem nie wskazuje) nieużywane od :graceMinutes – paczką; warunek na last_used_at
+    // jest w zewnętrznym WHERE, więc PostgreSQL sprawdza go ponownie po równoległym upsert.
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM problem_bodies
+             WHERE last_used_at < now() - make_interval(mins => :graceMinutes)
+               AND hash IN (SELECT b.hash FROM problem_bodies b
+                             WHERE b.last_used_at < now() - make_interval(mins => :graceMinutes)
+                               AND NOT EXISTS (SELECT 1 FROM problems p WHERE p.body_hash = b.hash)
+                             LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteOrphans(@Param("graceMinutes") int graceMinutes, @Param("limit") int limit);
+}
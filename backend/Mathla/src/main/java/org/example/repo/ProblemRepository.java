@@ -2,11 +2,17 @@ package org.example.repo;
 
 import org.example.model.Problem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ProblemRepository extends JpaRepository<Problem, Long> {
-    Optional<Problem> findByAssignment_Id(Long assignmentId);
-    void  deleteByAssignment_Id(Long assignmentId);
+    // join – zadania oznaczone jako usunięte (czekające na AssignmentPurger) nie mają problemów
+    // treść (problem_bodies) od razu w tym samym zapytaniu
+    @Query("select p from Problem p join p.assignment a join fetch p.body"
+            + " where a.id = :assignmentId and a.deletedAt is null order by p.id")
+    List<Problem> findWithBodyByAssignment(@Param("assignmentId") Long assignmentId);
     Optional<Problem> findFirstByAssignment_IdOrderByIdAsc(Long assignmentId);
 }
@@ -0,0 +1,8 @@
+package org.example.repo;
+
+import org.example.model.SubmissionRevision;
+
+import java.time.OffsetDateTime;
+
+/** Metadane rewizji bez treści (lista). */
+public record RevisionRow(Integer revNo, SubmissionRevision.Kind kind, String reason, OffsetDateTime createdAt) {}
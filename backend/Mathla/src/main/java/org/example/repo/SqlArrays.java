@@ -0,0 +1,27 @@
+package org.example.repo;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Literały tablic PostgreSQL dla zapytań natywnych – przekazujemy je jako tekst
+ * i rzutujemy w SQL (np. {@code CAST(:ids AS bigint[])}), żeby cały zbiór poszedł jednym parametrem.
+ */
+public final class SqlArrays {
+
+    private SqlArrays() {}
+
+    /** {1,2,3} – null-e jako NULL */
+    public static String bigints(Collection<Long> values) {
+        return values.stream()
+                .map(v -> v == null ? "NULL" : v.toString())
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    /** {"a","b \"c\""} – każdy element w cudzysłowie (przecinki, spacje, klamry), null-e jako NULL */
+    public static String texts(Collection<String> values) {
+        return values.stream()
+                .map(v -> v == null ? "NULL" : "\"" + v.replace("\\", "\\\\").replace("\"", "\\\"") + "\"")
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+}
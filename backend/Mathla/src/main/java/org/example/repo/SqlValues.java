@@ -0,0 +1,23 @@
+package org.example.repo;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/** Odczyt wartości z wierszy zapytań natywnych ({@code Object[]}) – typ zależy od sterownika/dialektu. */
+public final class SqlValues {
+
+    private SqlValues() {}
+
+    /** timestamptz → OffsetDateTime (UTC), null → null */
+    public static OffsetDateTime timestamp(Object v) {
+        if (v == null) return null;
+        if (v instanceof OffsetDateTime o) return o;
+        if (v instanceof Instant i) return i.atOffset(ZoneOffset.UTC);
+        if (v instanceof Timestamp t) return t.toInstant().atOffset(ZoneOffset.UTC);
+        if (v instanceof ZonedDateTime z) return z.toOffsetDateTime();
+        throw new IllegalStateException("Unexpected timestamp type: " + v.getClass());
+    }
+}
@@ -2,10 +2,16 @@ package org.example.repo;
 
 import org.example.model.Submission;
 import org.example.model.SubmissionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,9 +29,6 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     int deleteByIdAndStudent_Id(Long id, Long studentId);
     int deleteByIdAndAssignment_Teacher_Id(Long id, Long teacherId);
 
-    @Modifying
-    void deleteByAssignment_Id(Long assignmentId);
-
     boolean existsByAssignment_IdAndStudent_IdAndStatus(Long assignmentId, Long studentId, SubmissionStatus status);
 
     @Modifying
@@ -44,4 +47,123 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
 
     @EntityGraph(attributePaths = {"assignment","student"})
     List<Submission> findByStudent_IdOrderByIdDesc(Long studentId);
+
+    // ocena zbiorcza – prace razem z zadaniem (i jego nauczycielem) oraz uczniem
+    @EntityGraph(attributePaths = {"assignment", "assignment.teacher", "student"})
+    List<Submission> findByIdIn(Collection<Long> ids);
+
+    // bufor zapisów (SubmissionIngest): istniejące prace dla paczki par zadanie×uczeń (nadzbiór, filtr po stronie Javy)
+    @EntityGraph(attributePaths = {"assignment", "assignment.teacher", "student"})
+    List<Submission> findByAssignment_IdInAndStudent_IdIn(Collection<Long> assignmentIds, Collection<Long> studentIds);
+
+    // ===== Listing projekcją (jedno zapytanie, bez encji) + stronicowanie keyset po id DESC =====
+    String ROW_SELECT = """
+            select new org.example.repo.SubmissionRow(
+                   s.id, a.id, a.title, u.id, u.name, u.email,
+                   s.textAnswer, s.score, s.status, s.createdAt, s.reviewNote, s.version)
+              from Submission s join s.assignment a join s.student u
+            """;
+
+    @Query(ROW_SELECT + "where s.id < :cursor order by s.id desc")
+    List<SubmissionRow> findRows(@Param("cursor") Long cursor, Pageable page);
+
+    @Query(ROW_SELECT + "where u.id = :studentId and s.id < :cursor order by s.id desc")
+    List<SubmissionRow> findRowsByStudent(@Param("studentId") Long studentId, @Param("cursor") Long cursor, Pageable page);
+
+    // najnowsze zgłoszenie ucznia per zadanie (po poprawkach liczy się ostatnie) – panel ucznia
+    @Query("""
+            select new org.example.repo.LatestSubmissionRow(s.assignment.id, s.id, s.status, s.score, s.createdAt, s.submittedAt)
+            from Submission s
+            where s.student.id = :studentId
+              and s.id = (select max(s2.id) from Submission s2
+                           where s2.student.id = :studentId and s2.assignment = s.assignment)
+            """)
+    List<LatestSubmissionRow> findLatestByStudent(@Param("studentId") Long studentId);
+
+    @Query(ROW_SELECT + "where a.id = :assignmentId and s.id < :cursor order by s.id desc")
+    List<SubmissionRow> findRowsByAssignment(@Param("assignmentId") Long assignmentId, @Param("cursor") Long cursor, Pageable page);
+
+    @Query(ROW_SELECT + "where a.teacher.id = :teacherId and s.id < :cursor order by s.id desc")
+    List<SubmissionRow> findRowsByTeacher(@Param("teacherId") Long teacherId, @Param("cursor") Long cursor, Pageable page);
+
+    // AUTO-SUBMIT: DRAFT-y po terminie efektywnym (per-uczeń → grupowy → globalny) → SUBMITTED, jednym UPDATE-em.
+    // RETURNING: [id, assignment_id, student_id, teacher_id] – do powiadomień SSE.
+    @Transactional
+    @Query(value = """
+            UPDATE submissions s
+               SET status = 'SUBMITTED',
+                   submitted_at = COALESCE(s.submitted_at, now()),
+                   version = s.version + 1
+              FROM assignments a
+             WHERE a.id = s.assignment_id
+               AND a.deleted_at IS NULL
+               AND s.status = 'DRAFT'
+               AND COALESCE(
+                     (SELECT l.due_at FROM assignment_students l
+                       WHERE l.assignment_id = s.assignment_id AND l.student_id = s.student_id),
+                     (SELECT max(ag.due_at) FROM assignment_groups ag
+                        JOIN group_students gs ON gs.group_id = ag.group_id
+                       WHERE ag.assignment_id = s.assignment_id AND gs.student_id = s.student_id),
+                     a.due_at
+                   ) < now()
+            RETURNING s.id, s.assignment_id, s.student_id, a.teacher_id
+            """, nativeQuery = true)
+    List<Object[]> submitExpiredDrafts();
+
+    // „Brak pracy w terminie” dla wszystkich przydzielonych (indywidualnie lub przez grupę) bez zgłoszenia
+    // po terminie efektywnym (per-uczeń → grupowy → globalny) – INSERT ... SELECT.
+    // RETURNING: [id, student_id] wstawionych – do powiadomień SSE.
+    @Transactional
+    @Query(value = """
+            INSERT INTO submissions (assignment_id, student_id, text_answer, status, score, review_note, created_at)
+            SELECT a.id, x.student_id, '', 'GRADED', :score, :note, now()
+              FROM (SELECT t.student_id, max(t.group_due) AS group_due
+                      FROM (SELECT l.student_id, CAST(NULL AS timestamptz) AS group_due
+                              FROM assignment_students l WHERE l.assignment_id = :assignmentId
+                            UNION ALL
+                            SELECT gs.student_id, ag.due_at FROM assignment_groups ag
+                              JOIN group_students gs ON gs.group_id = ag.group_id
+                             WHERE ag.assignment_id = :assignmentId) t
+                     GROUP BY t.student_id) x
+              JOIN assignments a ON a.id = :assignmentId AND a.deleted_at IS NULL
+              LEFT JOIN assignment_students l ON l.assignment_id = a.id AND l.student_id = x.student_id
+             WHERE COALESCE(l.due_at, x.group_due, a.due_at) < now()
+               AND NOT EXISTS (SELECT 1 FROM submissions s
+                                WHERE s.assignment_id = a.id AND s.student_id = x.student_id)
+            RETURNING id, student_id
+            """, nativeQuery = true)
+    List<Object[]> insertGradedForMissing(@Param("assignmentId") Long assignmentId,
+                               @Param("score") BigDecimal score,
+                               @Param("note") String note);
+
+    // AUTOSAVE: łatka (offset, deleteCount, insert) na text_answer – compare-and-set po wersji, bez blokad.
+    // 0 wierszy = nieaktualna wersja / nie ten uczeń / po terminie / oceniona / łatka poza tekstem.
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE submissions s
+               SET text_answer = overlay(COALESCE(s.text_answer, '') PLACING :insert FROM :offset + 1 FOR :deleteCount),
+                   version = s.version + 1
+             WHERE s.id = :id
+               AND s.student_id = :studentId
+               AND s.version = :version
+               AND s.status <> 'GRADED'
+               AND NOT EXISTS (SELECT 1 FROM assignments a WHERE a.id = s.assignment_id AND a.deleted_at IS NOT NULL)
+               AND :offset + :deleteCount <= char_length(COALESCE(s.text_answer, ''))
+               AND COALESCE(
+                     (SELECT l.due_at FROM assignment_students l
+                       WHERE l.assignment_id = s.assignment_id AND l.student_id = s.student_id),
+                     (SELECT max(ag.due_at) FROM assignment_groups ag
+                        JOIN group_students gs ON gs.group_id = ag.group_id
+                       WHERE ag.assignment_id = s.assignment_id AND gs.student_id = s.student_id),
+                     (SELECT a.due_at FROM assignments a WHERE a.id = s.assignment_id),
+                     CAST('infinity' AS timestamptz)
+                   ) >= now()
+            """, nativeQuery = true)
+    int applyAnswerPatch(@Param("id") Long id,
+                         @Param("studentId") Long studentId,
+                         @Param("version") Long version,
+                         @Param("offset") int offset,
+                         @Param("deleteCount") int deleteCount,
+                         @Param("insert") String insert);
 }
@@ -0,0 +1,46 @@
+package org.example.repo;
+
+import org.example.model.SubmissionRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface SubmissionRevisionRepository extends JpaRepository<SubmissionRevision, Long> {
+
+    // Metadane bez treści – lista rewizji do osi czasu
+    @Query("""
+           select new org.example.repo.RevisionRow(r.revNo, r.kind, r.reason, r.createdAt)
+             from SubmissionRevision r
+            where r.submissionId = :submissionId
+            order by r.revNo
+           """)
+    List<RevisionRow> findRows(@Param("submissionId") Long submissionId);
+
+    // Najbliższy pełny zapis nie późniejszy niż rev – od niego odtwarzamy tekst
+    Optional<SubmissionRevision> findTopBySubmissionIdAndKindAndRevNoLessThanEqualOrderByRevNoDesc(
+            Long submissionId, SubmissionRevision.Kind kind, Integer revNo);
+
+    List<SubmissionRevision> findBySubmissionIdAndRevNoBetweenOrderByRevNo(Long submissionId, Integer fromRev, Integer toRev);
+
+    // Bieżący tekst prosto z tabeli (po łatce wykonanej natywnym UPDATE-em)
+    @Query(value = "SELECT text_answer FROM submissions WHERE id = :submissionId", nativeQuery = true)
+    String findCurrentText(@Param("submissionId") Long submissionId);
+
+    // Stan łańcucha: [ostatni rev_no, liczba delt od ostatniego snapshotu, ich łączny rozmiar, długość bieżącego tekstu]
+    @Query(value = """
+            SELECT COALESCE(MAX(r.rev_no), 0),
+                   COUNT(*) FILTER (WHERE r.kind = 'DELTA' AND r.rev_no > COALESCE(snap.rev_no, 0)),
+                   COALESCE(SUM(char_length(r.body)) FILTER (WHERE r.kind = 'DELTA' AND r.rev_no > COALESCE(snap.rev_no, 0)), 0),
+                   (SELECT COALESCE(char_length(s.text_answer), 0) FROM submissions s WHERE s.id = :submissionId)
+              FROM submission_revisions r
+              LEFT JOIN LATERAL (
+                   SELECT MAX(x.rev_no) AS rev_no FROM submission_revisions x
+                    WHERE x.submission_id = :submissionId AND x.kind = 'SNAPSHOT'
+              ) snap ON true
+             WHERE r.submission_id = :submissionId
+            """, nativeQuery = true)
+    List<Object[]> chainState(@Param("submissionId") Long submissionId);
+}
@@ -0,0 +1,22 @@
+package org.example.repo;
+
+import org.example.model.SubmissionStatus;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/** Projekcja listingu zgłoszeń – dokładnie kolumny potrzebne do SubmissionResponse (bez encji i proxy). */
+public record SubmissionRow(
+        Long id,
+        Long assignmentId,
+        String assignmentTitle,
+        Long studentId,
+        String studentName,
+        String studentEmail,
+        String textAnswer,
+        BigDecimal score,
+        SubmissionStatus status,
+        OffsetDateTime createdAt,
+        String reviewNote,
+        Long version
+) {}
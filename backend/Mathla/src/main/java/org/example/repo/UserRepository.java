@@ -3,7 +3,11 @@ package org.example.repo;
 import org.example.model.User;
 import org.example.model.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +18,85 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByRole(UserRole role);
     Optional<User> findByEmailIgnoreCase(String email);
     boolean existsByEmailIgnoreCase(String email);
+
+    // WYSZUKIWANIE (podpowiedzi „dodaj ucznia”): fragment imienia lub e-maila, indeksy trigramowe z V018.
+    // :contains/:prefix/:wordPrefix – gotowe wzorce LIKE (małe litery, z escapowaniem), :q – sama fraza.
+    // Kolejność: dokładny e-mail → początek e-maila/imienia → początek słowa w imieniu → fragment → podobne (literówki).
+    // Kolumny: id, email, name, role.
+    @Query(value = """
+            SELECT u.id, CAST(u.email AS text), u.name, CAST(u.role AS text)
+              FROM users u
+             WHERE (CAST(:role AS text) IS NULL OR CAST(u.role AS text) = CAST(:role AS text))
+               AND (lower(u.name) LIKE :contains ESCAPE '\\'
+                    OR lower(CAST(u.email AS text)) LIKE :contains ESCAPE '\\'
+                    OR lower(u.name) % :q)
+             ORDER BY CASE WHEN lower(CAST(u.email AS text)) = :q THEN 0
+                           WHEN lower(CAST(u.email AS text)) LIKE :prefix ESCAPE '\\'
+                                OR lower(u.name) LIKE :prefix ESCAPE '\\' THEN 1
+                           WHEN lower(u.name) LIKE :wordPrefix ESCAPE '\\' THEN 2
+                           WHEN lower(u.name) LIKE :contains ESCAPE '\\'
+                                OR lower(CAST(u.email AS text)) LIKE :contains ESCAPE '\\' THEN 3
+                           ELSE 4 END,
+                      similarity(lower(u.name), :q) DESC, lower(u.name), u.id
+             LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> search(@Param("q") String q,
+                          @Param("contains") String contains,
+                          @Param("prefix") String prefix,
+                          @Param("wordPrefix") String wordPrefix,
+                          @Param("role") String role,
+                          @Param("limit") int limit);
+
+    // WYSZUKIWANIE dla fraz krótszych niż 3 znaki: sam początek imienia lub e-maila (btree "C" z V018).
+    // Każda gałąź czyta indeks w kolejności i kończy po :limit wierszach – koszt nie zależy od liczby użytkowników.
+    // :prefix – gotowy wzorzec LIKE jak w search. Kolumny: id, email, name, role.
+    @Query(value = """
+            SELECT x.id, x.email, x.name, x.role
+              FROM ((SELECT u.id, CAST(u.email AS text) AS email, u.name, CAST(u.role AS text) AS role
+                       FROM users u
+                      WHERE (CAST(:role AS text) IS NULL OR CAST(u.role AS text) = CAST(:role AS text))
+                        AND lower(u.name) COLLATE "C" LIKE :prefix ESCAPE '\\'
+                      ORDER BY lower(u.name) COLLATE "C", u.id
+                      LIMIT :limit)
+                    UNION
+                    (SELECT u.id, CAST(u.email AS text), u.name, CAST(u.role AS text)
+                       FROM users u
+                      WHERE (CAST(:role AS text) IS NULL OR CAST(u.role AS text) = CAST(:role AS text))
+                        AND lower(CAST(u.email AS text)) COLLATE "C" LIKE :prefix ESCAPE '\\'
+                      ORDER BY lower(CAST(u.email AS text)) COLLATE "C", u.id
+                      LIMIT :limit)) x
+             ORDER BY lower(x.name), x.id
+             LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> searchPrefix(@Param("prefix") String prefix,
+                                @Param("role") String role,
+                                @Param("limit") int limit);
+
+    // role wielu użytkowników jednym zapytaniem: [id, role]
+    @Query("select u.id, u.role from User u where u.id in :ids")
+    List<Object[]> findRoles(@Param("ids") Collection<Long> ids);
+
+    // użytkownicy po paczce e-maili (citext – bez względu na wielkość liter): [id, email, role]
+    // emails z SqlArrays.texts(...)
+    @Query(value = """
+            SELECT u.id, CAST(u.email AS text), CAST(u.role AS text)
+              FROM users u
+             WHERE u.email = ANY(CAST(:emails AS citext[]))
+            """, nativeQuery = true)
+    List<Object[]> findByEmails(@Param("emails") String emails);
+
+    // Hurtowe konta uczniów: jeden INSERT na paczkę (trzy równoległe tablice z SqlArrays.texts(...)).
+    // E-mail zajęty w międzyczasie → pomijany (ON CONFLICT). RETURNING: [id, email] faktycznie utworzonych.
+    @Transactional
+    @Query(value = """
+            INSERT INTO users (email, password_hash, role, name, created_at)
+            SELECT x.email, x.password_hash, CAST('STUDENT' AS user_role), x.name, now()
+              FROM unnest(CAST(:emails AS text[]), CAST(:hashes AS text[]), CAST(:names AS text[]))
+                   AS x(email, password_hash, name)
+            ON CONFLICT (email) DO NOTHING
+            RETURNING id, CAST(email AS text)
+            """, nativeQuery = true)
+    List<Object[]> insertStudents(@Param("emails") String emails,
+                                  @Param("hashes") String hashes,
+                                  @Param("names") String names);
 }
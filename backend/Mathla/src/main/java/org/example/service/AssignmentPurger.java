@@ -0,0 +1,85 @@
+package org.example.service;
+
+import org.example.model.AssignmentPurge;
+import org.example.repo.AssignmentPurgeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Usuwanie zadań w tle.
+ *
+ * {@link #requestDelete} tylko oznacza zadanie ({@code deleted_at}) i zakłada wpis {@code assignment_purges} –
+ * od tej chwili zadanie nie istnieje dla odczytów. Zadanie cykliczne kasuje potem jego dane paczkami
+ * ({@code app.purge.chunk} wierszy, każda paczka we własnej krótkiej transakcji razem z licznikiem postępu):
+ * formuły → rewizje → zgłoszenia → przydziały (uczniowie, grupy) → problemy → samo zadanie.
+ * Stan jest w bazie, więc po restarcie praca wznawia się od miejsca, w którym stanęła.
+ */
+@Component
+public class AssignmentPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentPurger.class);
+
+    private final AssignmentPurgeRepository repo;
+    private final TransactionTemplate tx;
+    private final int chunk;
+    private final long budgetMillis;
+
+    public AssignmentPurger(AssignmentPurgeRepository repo,
+                            TransactionTemplate tx,
+                            @Value("${app.purge.chunk:1000}") int chunk,
+                            @Value("${app.purge.budgetMillis:2000}") long budgetMillis) {
+        this.repo = repo;
+        this.tx = tx;
+        this.chunk = chunk;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /** Oznacza zadanie jako usunięte (w transakcji wywołującego). false = nie ma takiego (albo już usunięte). */
+    public boolean requestDelete(Long assignmentId) {
+        if (repo.markDeleted(assignmentId) == 0) return false;
+        var p = new AssignmentPurge();
+        p.setAssignmentId(assignmentId);
+        repo.save(p);
+        return true;
+    }
+
+    // Jeden przebieg: otwarte usuwania po kolei, paczka za paczką, aż do wyczerpania budżetu czasu
+    @Scheduled(fixedDelayString = "${app.purge.tickMillis:5000}", initialDelay = 10000)
+    public void purgePending() {
+        long deadline = System.currentTimeMillis() + budgetMillis;
+        for (Long id : repo.findOpenIds()) {
+            while (System.currentTimeMillis() < deadline) {
+                if (!Boolean.TRUE.equals(tx.execute(st -> step(id)))) break;
+            }
+            if (System.currentTimeMillis() >= deadline) return; // reszta w następnym przebiegu
+        }
+    }
+
+    // Jedna paczka jednego rodzaju; true = jest jeszcze co robić
+    private boolean step(Long id) {
+        AssignmentPurge p = repo.findById(id).orElse(null);
+        if (p == null || p.getFinishedAt() != null) return false;
+
+        int n;
+        if ((n = repo.deleteFormulas(id, chunk)) > 0) p.addFormulas(n);
+        else if ((n = repo.deleteRevisions(id, chunk)) > 0) p.addRevisions(n);
+        else if ((n = repo.deleteSubmissions(id, chunk)) > 0) p.addSubmissions(n);
+        else if ((n = repo.deleteLinks(id, chunk)) > 0) p.addLinks(n);
+        else if ((n = repo.deleteGroupTargets(id, chunk)) > 0) p.addLinks(n);
+        else if ((n = repo.deleteProblems(id, chunk)) > 0) p.addProblems(n);
+        else {
+            repo.deleteAssignment(id);
+            p.setFinishedAt(OffsetDateTime.now());
+            log.info("Purge: zadanie {} usunięte (formuły {}, rewizje {}, zgłoszenia {}, przydziały {}, problemy {})",
+                    id, p.getFormulas(), p.getRevisions(), p.getSubmissions(), p.getLinks(), p.getProblems());
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,286 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Odpowiedzi GET z treścią zadań/problemów: gotowe bajty JSON (i ich wersja gzip) w pamięci LRU
+ * razem z walidatorami – silny ETag (skrót treści) i Last-Modified (z {@code updated_at}, ale nie wcześniejszy
+ * niż ostatnia zmiana danych spoza wiersza, np. nazwy nauczyciela – {@link #invalidateAll}).
+ *
+ * Warunkowe żądanie ({@code If-None-Match} / {@code If-Modified-Since}) trafiające we wpis dostaje 304
+ * bez zapytania do bazy; trafienie bez walidatorów – gotowe bajty bez ponownej serializacji i kompresji.
+ * Zapisy unieważniają wpisy po commicie transakcji (licznik pokoleń odrzuca wpisy załadowane w trakcie).
+ * Jednoczesne chybienia dla tego samego klucza ładują i serializują raz ({@link SingleFlight}).
+ *
+ * Klucze: {@code assignment:<id>}, {@code problems:<assignmentId>}, {@code assigned:<studentId>},
+ * {@code body:<hash>} – treść problemu po skrócie ({@link #serveImmutable}): niezmienna, nigdy nie unieważniana.
+ */
+@Component
+public class ContentCache {
+
+    public static final String ASSIGNMENT = "assignment:";
+    public static final String PROBLEMS = "problems:";
+    public static final String ASSIGNED = "assigned:";
+    public static final String BODY = "body:";
+
+    private static final int MIN_GZIP_BYTES = 512; // mniejszych odpowiedzi nie opłaca się kompresować
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate(); // zawsze rewalidacja
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+    private static final List<String> VARY = List.of(HttpHeaders.ACCEPT_ENCODING);
+
+    /** Wynik ładowania: obiekt do serializacji + moment ostatniej zmiany treści (może być null). */
+    public record Loaded(Object body, OffsetDateTime lastModified) {}
+
+    private record Entry(String etag, String gzipEtag, long lastModified, byte[] identity, byte[] gzip,
+                         CacheControl cacheControl) {}
+
+    private final ObjectMapper json;
+    private final SingleFlight flights;
+    private final Map<String, Entry> cache;
+    private final AtomicLong generation = new AtomicLong();
+    // zmiany przydziałów nie mają własnego updated_at – ich moment wchodzi do Last-Modified list ucznia
+    private volatile Instant assigneesChangedAt = Instant.now();
+    // tak samo dane spoza treści zadań (nazwa/e-mail nauczyciela) – ich moment wchodzi do Last-Modified każdego wpisu serve()
+    private volatile Instant sharedChangedAt = Instant.now();
+
+    public ContentCache(ObjectMapper json,
+                        SingleFlight flights,
+                        @Value("${app.content-cache.capacity:2000}") int capacity) {
+        this.json = json;
+        this.flights = flights;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Odpowiedź dla {@code key}: z pamięci albo z {@code loader} (baza). 304, gdy walidatory klienta pasują.
+     * Wyjątki loadera (404 itp.) przechodzą bez zmian i nic nie jest zapamiętywane.
+     */
+    public ResponseEntity<byte[]> serve(String key, HttpHeaders request, Supplier<Loaded> loader) {
+        Entry e;
+        synchronized (cache) {
+            e = cache.get(key);
+        }
+        if (e == null) {
+            long gen = generation.get();
+            // pokolenie w kluczu: po unieważnieniu nikt nie dołączy do ładowania sprzed zmiany
+            e = flights.load(key + "@" + gen, () -> {
+                Entry built = build(withSharedChanges(loader.get()), null, CACHE_CONTROL);
+                synchronized (cache) {
+                    if (generation.get() == gen) cache.put(key, built);
+                }
+                return built;
+            });
+        }
+        return respond(e, request);
+    }
+
+    /**
+     * Treść adresowana skrótem: ETag to sam skrót (bez serializacji przy porównaniu), odpowiedź cache'owana
+     * przez klienta na stałe. Wpis jest wspólny dla wszystkich zadań z tą treścią i nie jest unieważniany.
+     */
+    public ResponseEntity<byte[]> serveImmutable(String hash, HttpHeaders request, Supplier<Object> loader) {
+        String key = BODY + hash;
+        Entry e;
+        synchronized (cache) {
+            e = cache.get(key);
+        }
+        if (e == null) {
+            e = flights.load(key, () -> {
+                Entry built = build(new Loaded(loader.get(), null), hash, IMMUTABLE);
+                synchronized (cache) {
+                    cache.put(key, built);
+                }
+                return built;
+            });
+        }
+        return respond(e, request);
+    }
+
+    /** Lista przydzielonych uczniowi: Last-Modified uwzględnia też ostatnią zmianę przydziałów. */
+    public OffsetDateTime assignedLastModified(OffsetDateTime contentLastModified) {
+        OffsetDateTime changed = OffsetDateTime.ofInstant(assigneesChangedAt, ZoneOffset.UTC);
+        return contentLastModified == null || changed.isAfter(contentLastModified) ? changed : contentLastModified;
+    }
+
+    /** Treść zadania lub jego problemów – wpis zadania, jego problemy i wszystkie listy uczniów. */
+    public void invalidateAssignment(Long assignmentId) {
+        String a = ASSIGNMENT + assignmentId, p = PROBLEMS + assignmentId;
+        afterCommit(() -> {
+            assigneesChangedAt = Instant.now(); // zmiana treści/terminu też musi przestawić Last-Modified listy ucznia
+            evict(k -> k.equals(a) || k.equals(p) || k.startsWith(ASSIGNED));
+        });
+    }
+
+    /** Przydziały (uczniowie, grupy, członkostwo) – tylko listy uczniów. */
+    public void invalidateAssignees() {
+        afterCommit(() -> {
+            assigneesChangedAt = Instant.now();
+            evict(k -> k.startsWith(ASSIGNED));
+        });
+    }
+
+    /** Zmiany spoza treści zadań widoczne w odpowiedziach (np. nazwa nauczyciela). */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            Instant now = Instant.now();
+            assigneesChangedAt = now;
+            sharedChangedAt = now;
+            evict(k -> !k.startsWith(BODY)); // treść po skrócie się nie zmienia
+        });
+    }
+
+    /* ====== POMOCNICZE ====== */
+
+    private void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    // updated_at nie obejmuje np. zmiany nazwy nauczyciela – inaczej If-Modified-Since dostałby 304 dla zmienionej treści
+    private Loaded withSharedChanges(Loaded l) {
+        OffsetDateTime shared = OffsetDateTime.ofInstant(sharedChangedAt, ZoneOffset.UTC);
+        if (l.lastModified() != null && !shared.isAfter(l.lastModified())) return l;
+        return new Loaded(l.body(), shared);
+    }
+
+    private void evict(Predicate<String> which) {
+        synchronized (cache) {
+            generation.incrementAndGet(); // ładowania rozpoczęte przed zmianą nie trafią do pamięci
+            cache.keySet().removeIf(which);
+        }
+    }
+
+    // tag == null → skrót serializowanych bajtów
+    private Entry build(Loaded l, String tag, CacheControl cacheControl) {
+        byte[] identity;
+        try {
+            identity = json.writeValueAsBytes(l.body());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+        // nagłówki HTTP mają rozdzielczość sekund
+        long lastModified = l.lastModified() == null ? -1
+                : l.lastModified().toInstant().truncatedTo(ChronoUnit.SECONDS).toEpochMilli();
+        if (tag == null) tag = HexFormat.of().formatHex(sha256(identity), 0, 16);
+        byte[] gzip = identity.length >= MIN_GZIP_BYTES ? gzip(identity) : null;
+        return new Entry("\"" + tag + "\"", "\"" + tag + "-gz\"", lastModified, identity, gzip, cacheControl);
+    }
+
+    private ResponseEntity<byte[]> respond(Entry e, HttpHeaders request) {
+        boolean gz = e.gzip() != null && acceptsGzip(request);
+        String etag = gz ? e.gzipEtag() : e.etag();
+
+        var h = new HttpHeaders();
+        h.setETag(etag);
+        if (e.lastModified() >= 0) h.setLastModified(e.lastModified());
+        h.setCacheControl(e.cacheControl());
+        h.setVary(VARY);
+
+        if (notModified(e, etag, request)) {
+            return new ResponseEntity<>(h, HttpStatus.NOT_MODIFIED);
+        }
+        h.setContentType(MediaType.APPLICATION_JSON);
+        if (gz) h.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        byte[] body = gz ? e.gzip() : e.identity();
+        h.setContentLength(body.length);
+        return new ResponseEntity<>(body, h, HttpStatus.OK);
+    }
+
+    // If-None-Match ma pierwszeństwo (RFC 9110 13.2.2); If-Modified-Since tylko, gdy go brak
+    private static boolean notModified(Entry e, String etag, HttpHeaders request) {
+        List<String> inm = request.getIfNoneMatch();
+        if (!inm.isEmpty()) {
+            for (String t : inm) {
+                if (t.equals("*") || stripWeak(t).equals(etag)) return true;
+            }
+            return false;
+        }
+        if (e.lastModified() < 0) return false;
+        try {
+            long ims = request.getIfModifiedSince();
+            return ims >= 0 && e.lastModified() <= ims;
+        } catch (IllegalArgumentException ex) {
+            return false; // niepoprawna data – ignorujemy nagłówek
+        }
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static boolean acceptsGzip(HttpHeaders request) {
+        for (String v : request.getValuesAsList(HttpHeaders.ACCEPT_ENCODING)) {
+            String[] parts = v.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.equals("gzip") && !coding.equals("*")) continue;
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String p = parts[i].trim().replace(" ", "");
+                if (p.startsWith("q=")) refused = p.matches("q=0(\\.0{0,3})?");
+            }
+            if (!refused) return true;
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        var out = new ByteArrayOutputStream(raw.length / 3 + 64);
+        try (var z = new GZIPOutputStream(out)) {
+            z.write(raw);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] sha256(byte[] raw) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(raw);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
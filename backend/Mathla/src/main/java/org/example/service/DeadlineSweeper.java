@@ -0,0 +1,100 @@
+package org.example.service;
+
+import org.example.model.SubmissionStatus;
+import org.example.repo.AssignmentGroupRepository;
+import org.example.repo.AssignmentRepository;
+import org.example.repo.AssignmentStudentRepository;
+import org.example.repo.SubmissionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * AUTO-SUBMIT w tle: każdy DRAFT, którego termin (efektywny) minął, przechodzi na SUBMITTED.
+ *
+ * W pamięci trzymamy posortowaną kolejkę nadchodzących terminów (okno {@code horizonMinutes}),
+ * odświeżaną co {@code refreshMillis}. Tik co {@code tickMillis} sprawdza tylko głowę kolejki –
+ * do bazy idziemy dopiero, gdy jakiś termin faktycznie minął, i wtedy jednym UPDATE-em.
+ */
+@Component
+public class DeadlineSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadlineSweeper.class);
+
+    private final SubmissionRepository submissionRepo;
+    private final AssignmentRepository assignmentRepo;
+    private final AssignmentStudentRepository assignRepo;
+    private final AssignmentGroupRepository assignmentGroupRepo;
+    private final SubmissionEvents events;
+
+    private final NavigableSet<Instant> upcoming = new ConcurrentSkipListSet<>();
+    private volatile Instant horizonEnd = Instant.EPOCH;
+
+    @Value("${app.deadlines.horizonMinutes:15}")
+    private long horizonMinutes;
+
+    public DeadlineSweeper(SubmissionRepository submissionRepo,
+                           AssignmentRepository assignmentRepo,
+                           AssignmentStudentRepository assignRepo,
+                           AssignmentGroupRepository assignmentGroupRepo,
+                           SubmissionEvents events) {
+        this.submissionRepo = submissionRepo;
+        this.assignmentRepo = assignmentRepo;
+        this.assignRepo = assignRepo;
+        this.assignmentGroupRepo = assignmentGroupRepo;
+        this.events = events;
+    }
+
+    /** Zgłoszenie nowego/zmienionego terminu (np. z AssignmentController). Termin z przeszłości → sprzątanie przy najbliższym tiku. */
+    public void schedule(OffsetDateTime due) {
+        if (due == null) return;
+        Instant now = Instant.now();
+        Instant at = due.toInstant().isBefore(now) ? now : due.toInstant();
+        if (!at.isAfter(horizonEnd)) upcoming.add(at);
+        // terminy dalej niż okno wczyta najbliższy refresh()
+    }
+
+    @Scheduled(fixedDelayString = "${app.deadlines.tickMillis:1000}")
+    public void tick() {
+        var expired = upcoming.headSet(Instant.now(), true);
+        if (expired.isEmpty()) return;
+        expired.clear();
+        sweep();
+    }
+
+    // Przeładowanie okna + pełne sprzątanie (łapie też terminy, które minęły np. w trakcie restartu)
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.deadlines.refreshMillis:300000}")
+    public void refresh() {
+        OffsetDateTime from = OffsetDateTime.now();
+        OffsetDateTime to = from.plusMinutes(horizonMinutes);
+        assignmentRepo.findDueAtBetween(from, to).forEach(d -> upcoming.add(d.toInstant()));
+        assignRepo.findDueAtBetween(from, to).forEach(d -> upcoming.add(d.toInstant()));
+        assignmentGroupRepo.findDueAtBetween(from, to).forEach(d -> upcoming.add(d.toInstant()));
+        horizonEnd = to.toInstant();
+        sweep();
+    }
+
+    public int sweep() {
+        var rows = submissionRepo.submitExpiredDrafts();
+        if (rows.isEmpty()) return 0;
+
+        String at = OffsetDateTime.now().toString();
+        for (Object[] r : rows) {
+            events.publish(toLong(r[3]), new SubmissionEvents.Event(
+                    toLong(r[0]), toLong(r[1]), toLong(r[2]), SubmissionStatus.SUBMITTED.name(), at));
+        }
+        log.info("Auto-submit po terminie: {} prac(e)", rows.size());
+        return rows.size();
+    }
+
+    private static Long toLong(Object v) {
+        return v == null ? null : ((Number) v).longValue();
+    }
+}
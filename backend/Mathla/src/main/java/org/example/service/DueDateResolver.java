@@ -0,0 +1,75 @@
+package org.example.service;
+
+import org.example.repo.AssignmentRepository;
+import org.example.repo.SqlArrays;
+import org.example.repo.SqlValues;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Termin efektywny: per-uczeń (AssignmentStudent.dueAt) → grupowy (najpóźniejszy AssignmentGroup.dueAt grup ucznia)
+ * → globalny (Assignment.dueAt) → null (bez terminu).
+ *
+ * Rozwiązuje całe zbiory par jednym zapytaniem (COALESCE + LEFT JOIN). Wyniki są zapamiętywane
+ * na czas bieżącego żądania HTTP, więc kolejne sprawdzenia w tym samym żądaniu nie idą do bazy.
+ */
+@Component
+public class DueDateResolver {
+
+    public record Key(Long assignmentId, Long studentId) {}
+
+    private static final String MEMO_ATTR = DueDateResolver.class.getName() + ".memo";
+
+    private final AssignmentRepository assignmentRepo;
+
+    public DueDateResolver(AssignmentRepository assignmentRepo) {
+        this.assignmentRepo = assignmentRepo;
+    }
+
+    public OffsetDateTime resolve(Long assignmentId, Long studentId) {
+        if (assignmentId == null || studentId == null) return null;
+        var key = new Key(assignmentId, studentId);
+        return resolveAll(List.of(key)).get(key);
+    }
+
+    /** Mapa para → termin (null = brak terminu lub brak zadania). */
+    public Map<Key, OffsetDateTime> resolveAll(Collection<Key> keys) {
+        Map<Key, OffsetDateTime> memo = memo();
+        List<Key> missing = keys.stream()
+                .filter(k -> k.assignmentId() != null && k.studentId() != null)
+                .filter(k -> !memo.containsKey(k))
+                .distinct()
+                .toList();
+
+        if (!missing.isEmpty()) {
+            for (Key k : missing) memo.put(k, null);
+            var rows = assignmentRepo.findEffectiveDueAt(
+                    SqlArrays.bigints(missing.stream().map(Key::assignmentId).toList()),
+                    SqlArrays.bigints(missing.stream().map(Key::studentId).toList()));
+            for (Object[] r : rows) {
+                var k = new Key(((Number) r[0]).longValue(), ((Number) r[1]).longValue());
+                memo.put(k, SqlValues.timestamp(r[2]));
+            }
+        }
+
+        Map<Key, OffsetDateTime> out = new HashMap<>();
+        for (Key k : keys) out.put(k, memo.get(k));
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Key, OffsetDateTime> memo() {
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs == null) return new HashMap<>(); // poza żądaniem (np. zadania w tle) – bez pamięci
+        var m = (Map<Key, OffsetDateTime>) attrs.getAttribute(MEMO_ATTR, RequestAttributes.SCOPE_REQUEST);
+        if (m == null) {
+            m = new HashMap<>();
+            attrs.setAttribute(MEMO_ATTR, m, RequestAttributes.SCOPE_REQUEST);
+        }
+        return m;
+    }
+}
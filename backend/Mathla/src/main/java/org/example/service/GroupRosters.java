@@ -0,0 +1,182 @@
+package org.example.service;
+
+import org.example.repo.GroupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Składy grup w pamięci: grupa + nauczyciel + członkowie jako zwarte tablice (id, imiona, e-maile –
+ * napisy internowane, więc uczeń w kilku grupach i nauczyciel wielu grup to te same obiekty).
+ *
+ * Chybienie to jedno zapytanie: skład jednej grupy albo od razu wszystkich grup ucznia
+ * (razem z listą jego grup). Zmiany członkostwa i danych użytkowników unieważniają wpisy po commicie;
+ * licznik pokoleń odrzuca ładowania rozpoczęte przed zmianą, jednoczesne chybienia scala {@link SingleFlight}.
+ * Obie mapy są ograniczone (LRU, {@code app.group-rosters.*}); dostęp pod blokadą {@code this}.
+ */
+@Component
+public class GroupRosters {
+
+    /** Skład grupy – tablic nie wolno modyfikować (obiekt jest współdzielony między żądaniami). */
+    public record Roster(long groupId, String name,
+                         long teacherId, String teacherName, String teacherEmail,
+                         long[] memberIds, String[] memberNames, String[] memberEmails) {
+        public int size() { return memberIds.length; }
+    }
+
+    private final GroupRepository groups;
+    private final SingleFlight flights;
+    private final Map<Long, Roster> rosters;
+    private final Map<Long, long[]> studentGroups; // uczeń → id jego grup
+    private final AtomicLong generation = new AtomicLong();
+
+    public GroupRosters(GroupRepository groups,
+                        SingleFlight flights,
+                        @Value("${app.group-rosters.capacity:5000}") int capacity,
+                        @Value("${app.group-rosters.students:50000}") int students) {
+        this.groups = groups;
+        this.flights = flights;
+        this.rosters = lru(capacity);
+        this.studentGroups = lru(students); // wpis wskazujący na wypchnięty skład → ofStudent doładuje całość
+    }
+
+    /** Skład grupy; null = nie ma takiej grupy. */
+    public Roster roster(Long groupId) {
+        Roster r;
+        synchronized (this) {
+            r = rosters.get(groupId);
+        }
+        if (r != null) return r;
+        long gen = generation.get();
+        return flights.load("roster:" + groupId + "@" + gen, () -> {
+            Map<Long, Roster> loaded = build(groups.findRosterRows(groupId));
+            publish(gen, loaded, null);
+            return loaded.get(groupId);
+        });
+    }
+
+    /** Składy wszystkich grup ucznia (po id grupy). */
+    public List<Roster> ofStudent(Long studentId) {
+        synchronized (this) {
+            long[] ids = studentGroups.get(studentId);
+            if (ids != null) {
+                List<Roster> out = new ArrayList<>(ids.length);
+                for (long gid : ids) {
+                    Roster r = rosters.get(gid);
+                    if (r == null) break; // część wypadła – ładujemy całość jednym zapytaniem
+                    out.add(r);
+                }
+                if (out.size() == ids.length) return out;
+            }
+        }
+        long gen = generation.get();
+        return flights.load("roster-of:" + studentId + "@" + gen, () -> {
+            Map<Long, Roster> loaded = build(groups.findRosterRowsByStudent(studentId));
+            publish(gen, loaded, studentId);
+            return List.copyOf(loaded.values());
+        });
+    }
+
+    /** Zmiana członkostwa grupy: dodanie/usunięcie ucznia. */
+    public void invalidate(Long groupId, Long studentId) {
+        invalidate(groupId, studentId == null ? List.of() : List.of(studentId));
+    }
+
+    /** Jak wyżej, dla wielu uczniów naraz (import składu); pusta lista – usunięcie grupy. */
+    public void invalidate(Long groupId, Collection<Long> studentIds) {
+        afterCommit(() -> evict(() -> {
+            rosters.remove(groupId);
+            studentGroups.values().removeIf(ids -> contains(ids, groupId));
+            studentGroups.keySet().removeAll(studentIds);
+        }));
+    }
+
+    /** Zmiana imienia/e-maila użytkownika – może być w dowolnym składzie. */
+    public void invalidateAll() {
+        afterCommit(() -> evict(() -> {
+            rosters.clear();
+            studentGroups.clear();
+        }));
+    }
+
+    /* ====== POMOCNICZE ====== */
+
+    // wiersze: g.id, g.name, t.id, t.name, t.email, u.id, u.name, u.email (u.* = null dla pustej grupy)
+    private static Map<Long, Roster> build(List<Object[]> rows) {
+        Map<Long, List<Object[]>> byGroup = new LinkedHashMap<>();
+        for (Object[] r : rows) byGroup.computeIfAbsent((Long) r[0], k -> new ArrayList<>()).add(r);
+
+        Map<Long, Roster> out = new LinkedHashMap<>();
+        byGroup.forEach((gid, rs) -> {
+            Object[] head = rs.get(0);
+            int n = head[5] == null ? 0 : rs.size();
+            long[] ids = new long[n];
+            String[] names = new String[n], emails = new String[n];
+            for (int i = 0; i < n; i++) {
+                Object[] r = rs.get(i);
+                ids[i] = (Long) r[5];
+                names[i] = intern((String) r[6]);
+                emails[i] = intern((String) r[7]);
+            }
+            out.put(gid, new Roster(gid, (String) head[1], (Long) head[2],
+                    intern((String) head[3]), intern((String) head[4]), ids, names, emails));
+        });
+        return out;
+    }
+
+    private void publish(long gen, Map<Long, Roster> loaded, Long studentId) {
+        synchronized (this) {
+            if (generation.get() != gen) return; // w trakcie ładowania była zmiana
+            rosters.putAll(loaded);
+            if (studentId != null) {
+                studentGroups.put(studentId, loaded.keySet().stream().mapToLong(Long::longValue).toArray());
+            }
+        }
+    }
+
+    private void evict(Runnable r) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            r.run();
+        }
+    }
+
+    private static <V> Map<Long, V> lru(int capacity) {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private static boolean contains(long[] ids, long id) {
+        for (long x : ids) if (x == id) return true;
+        return false;
+    }
+
+    private static String intern(String s) {
+        return s == null ? null : s.intern();
+    }
+
+    private void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+}
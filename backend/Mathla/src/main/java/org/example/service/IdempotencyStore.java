@@ -0,0 +1,177 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.repo.IdempotencyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Obsługa nagłówka {@code Idempotency-Key} dla endpointów tworzących zgłoszenia.
+ *
+ * Pierwsza udana (2xx) odpowiedź jest zapamiętywana w ograniczonej pamięci LRU z czasem życia
+ * i kopiowana do tabeli {@code idempotency_keys} (po restarcie / na innej instancji). Powtórka tego
+ * samego żądania zwraca zapamiętaną odpowiedź bez dotykania repozytoriów zgłoszeń – ponowienia klienta
+ * po timeoucie nie dokładają pracy akurat wtedy, gdy serwer jest najwolniejszy.
+ *
+ * Klucz jest zawężony do użytkownika i endpointu. Ten sam klucz z inną treścią żądania → 422,
+ * równoległe żądanie z kluczem, który jest właśnie obsługiwany → 409.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private record Stored(String fingerprint, int status, String location, String body, Instant expiresAt) {}
+
+    private final IdempotencyRepository repo;
+    private final ObjectMapper json;
+    private final Duration ttl;
+    private final Map<String, Stored> cache;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public IdempotencyStore(IdempotencyRepository repo,
+                            ObjectMapper json,
+                            @Value("${app.idempotency.capacity:10000}") int capacity,
+                            @Value("${app.idempotency.ttlHours:24}") long ttlHours) {
+        this.repo = repo;
+        this.json = json;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) { // kolejność dostępu → najdawniej używany wypada
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Wykonuje {@code action} najwyżej raz dla danego klucza. Bez klucza – zwykłe wywołanie.
+     *
+     * @param scope   np. {@code "POST /api/submissions"} (+ użytkownik)
+     * @param request treść żądania – do wykrycia ponownego użycia klucza z innymi danymi
+     */
+    public <T> ResponseEntity<T> execute(String key, String scope, Object request, Class<T> type,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) return action.get();
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "IDEMPOTENCY_KEY_TOO_LONG");
+        }
+        String scopeKey = scope + "|" + key;
+        String fingerprint = fingerprint(request);
+
+        Stored hit = lookup(scopeKey);
+        if (hit != null) return replay(hit, fingerprint, type);
+
+        if (!inFlight.add(scopeKey)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "IDEMPOTENCY_IN_PROGRESS");
+        }
+        try {
+            hit = lookup(scopeKey); // mogło się zakończyć między sprawdzeniem a rezerwacją
+            if (hit != null) return replay(hit, fingerprint, type);
+
+            ResponseEntity<T> res = action.get();
+            if (res.getStatusCode().is2xxSuccessful()) remember(scopeKey, fingerprint, res);
+            return res;
+        } finally {
+            inFlight.remove(scopeKey);
+        }
+    }
+
+    // Co godzinę sprzątamy przeterminowane wpisy z tabeli (pamięć wygasa sama przy odczycie / LRU)
+    @Scheduled(fixedDelayString = "${app.idempotency.purgeMillis:3600000}", initialDelay = 60000)
+    public void purgeExpired() {
+        int n = repo.deleteExpired(OffsetDateTime.now());
+        if (n > 0) log.info("Idempotency: usunięto {} przeterminowanych kluczy", n);
+    }
+
+    /* ====== POMOCNICZE ====== */
+
+    private Stored lookup(String scopeKey) {
+        Instant now = Instant.now();
+        Stored s;
+        synchronized (cache) {
+            s = cache.get(scopeKey);
+            if (s != null && s.expiresAt().isBefore(now)) {
+                cache.remove(scopeKey);
+                s = null;
+            }
+        }
+        if (s != null) return s;
+
+        // fallback: trwała kopia (restart, inna instancja, wypadnięcie z LRU)
+        var rec = repo.findById(scopeKey).orElse(null);
+        if (rec == null || rec.getExpiresAt().toInstant().isBefore(now)) return null;
+        s = new Stored(rec.getFingerprint(), rec.getStatus(), rec.getLocation(), rec.getBody(), rec.getExpiresAt().toInstant());
+        synchronized (cache) {
+            cache.put(scopeKey, s);
+        }
+        return s;
+    }
+
+    private void remember(String scopeKey, String fingerprint, ResponseEntity<?> res) {
+        String body;
+        try {
+            body = json.writeValueAsString(res.getBody());
+        } catch (JsonProcessingException ex) {
+            log.warn("Idempotency: nie można zapisać odpowiedzi dla {}", scopeKey, ex);
+            return;
+        }
+        URI location = res.getHeaders().getLocation();
+        var s = new Stored(fingerprint, res.getStatusCode().value(),
+                location == null ? null : location.toString(), body, Instant.now().plus(ttl));
+        synchronized (cache) {
+            cache.put(scopeKey, s);
+        }
+        repo.insertIfAbsent(scopeKey, fingerprint, s.status(), s.location(), body,
+                s.expiresAt().atOffset(ZoneOffset.UTC));
+    }
+
+    private <T> ResponseEntity<T> replay(Stored s, String fingerprint, Class<T> type) {
+        if (!s.fingerprint().equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED");
+        }
+        var h = new HttpHeaders();
+        h.set(REPLAYED_HEADER, "true");
+        if (s.location() != null) h.setLocation(URI.create(s.location()));
+        try {
+            return ResponseEntity.status(s.status()).headers(h).body(json.readValue(s.body(), type));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Corrupted idempotent response", ex);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] raw = json.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(raw));
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
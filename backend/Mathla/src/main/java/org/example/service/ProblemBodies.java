@@ -0,0 +1,59 @@
+package org.example.service;
+
+import org.example.model.ProblemBody;
+import org.example.repo.ProblemBodyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Magazyn treści problemów adresowany skrótem ({@code problem_bodies}).
+ *
+ * Ta sama treść użyta w wielu zadaniach to jeden wiersz i jeden skrót – po nim kluczujemy
+ * niezmienne odpowiedzi ({@code GET /api/problem-bodies/{hash}}, ETag = skrót), więc gotowa
+ * (skompresowana) postać jest wspólna dla wszystkich zadań. Treści bez odwołań sprząta {@link #sweepOrphans}.
+ */
+@Component
+public class ProblemBodies {
+
+    private static final Logger log = LoggerFactory.getLogger(ProblemBodies.class);
+    private static final int ORPHAN_GRACE_MINUTES = 60;
+    private static final int ORPHAN_BATCH = 1000;
+
+    private final ProblemBodyRepository repo;
+
+    public ProblemBodies(ProblemBodyRepository repo) {
+        this.repo = repo;
+    }
+
+    /** Zapisuje treść (jeśli nowa) i zwraca referencję do niej – do {@code Problem.setBody}. */
+    public ProblemBody intern(String content) {
+        String hash = hash(content);
+        repo.upsert(hash, content);
+        return repo.getReferenceById(hash);
+    }
+
+    /** sha256(treść w UTF-8), hex – to samo co encode(sha256(convert_to(…, 'UTF8')), 'hex') w V017. */
+    public static String hash(String content) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Co godzinę: treści, na które nie wskazuje już żaden problem (po edycji / usunięciu zadania)
+    @Scheduled(fixedDelayString = "${app.problem-bodies.sweepMillis:3600000}", initialDelay = 120000)
+    public void sweepOrphans() {
+        int total = 0, n;
+        while ((n = repo.deleteOrphans(ORPHAN_GRACE_MINUTES, ORPHAN_BATCH)) > 0) total += n;
+        if (total > 0) log.info("Problem bodies: usunięto {} nieużywanych treści", total);
+    }
+}
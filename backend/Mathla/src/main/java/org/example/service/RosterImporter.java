@@ -0,0 +1,152 @@
+package org.example.service;
+
+import org.example.api.dto.RosterImportResult;
+import org.example.api.dto.RosterImportResult.Rejected;
+import org.example.repo.GroupStudentRepository;
+import org.example.repo.SqlArrays;
+import org.example.repo.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Import składu grupy z pliku CSV/TSV, czytanego strumieniowo (plik nigdy nie jest w pamięci w całości).
+ *
+ * Wiersz to e-mail ucznia, opcjonalnie z id ({@code id,email} / {@code email;id} / tabulator – kolejność
+ * dowolna, e-mail poznajemy po '@'). Nagłówek i puste linie są pomijane. Co {@value #BATCH} wierszy:
+ * jedno zapytanie po e-maile ({@code email = ANY(...)}) i jeden INSERT z anty-joinem na istniejących członków.
+ * Reguły jak w {@code POST /api/groups/{gid}/students}: tylko uczniowie, podane id musi pasować do e-maila.
+ *
+ * Paczki nie są jedną transakcją (plik może się wczytywać długo) – każda paczka jest trwała od razu,
+ * a {@code onAdded} dostaje jej nowych członków (unieważnienie cache). Błąd odczytu lub zapisu przerywa import:
+ * wynik obejmuje to, co już zapisano, plus {@code error}.
+ */
+@Component
+public class RosterImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(RosterImporter.class);
+
+    static final int BATCH = 500;
+
+    private record Row(int line, Long id, String email) {}
+
+    private final UserRepository users;
+    private final GroupStudentRepository groupStudents;
+
+    public RosterImporter(UserRepository users, GroupStudentRepository groupStudents) {
+        this.users = users;
+        this.groupStudents = groupStudents;
+    }
+
+    public RosterImportResult importCsv(Long groupId, InputStream in, Consumer<List<Long>> onAdded) {
+        var added = new ArrayList<Long>();
+        var duplicates = new ArrayList<Long>();
+        var missing = new ArrayList<Long>();
+        var rejected = new ArrayList<Rejected>();
+        Set<Long> seen = new HashSet<>(); // powtórki w samym pliku → duplicates
+        int rows = 0;
+        String error = null;
+
+        try (var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<Row> batch = new ArrayList<>(BATCH);
+            String line;
+            int no = 0;
+            while ((line = reader.readLine()) != null) {
+                no++;
+                if (no == 1 && line.startsWith("\uFEFF")) line = line.substring(1); // BOM z Excela
+                if (line.isBlank()) continue;
+                Row r = parse(no, line);
+                if (r == null) continue; // nagłówek
+                rows++;
+                if (r.email() == null) {
+                    if (r.id() != null) missing.add(r.id());
+                    else rejected.add(new Rejected(no, line.strip(), "NO_EMAIL"));
+                    continue;
+                }
+                batch.add(r);
+                if (batch.size() == BATCH) {
+                    flush(groupId, batch, seen, added, duplicates, missing, rejected, onAdded);
+                    batch.clear();
+                }
+            }
+            flush(groupId, batch, seen, added, duplicates, missing, rejected, onAdded);
+        } catch (IOException ex) {
+            log.warn("Import składu grupy {} przerwany przy odczycie ({} dodanych): {}", groupId, added.size(), ex.toString());
+            error = "READ_FAILED";
+        } catch (RuntimeException ex) {
+            log.warn("Import składu grupy {} przerwany przy zapisie ({} dodanych)", groupId, added.size(), ex);
+            error = "WRITE_FAILED";
+        }
+        rejected.sort(Comparator.comparingInt(Rejected::line)); // część odrzuceń wychodzi dopiero przy paczce
+        return new RosterImportResult(rows, added, duplicates, missing, rejected, error);
+    }
+
+    /* ====== POMOCNICZE ====== */
+
+    private void flush(Long groupId, List<Row> batch, Set<Long> seen,
+                       List<Long> added, List<Long> duplicates, List<Long> missing, List<Rejected> rejected,
+                       Consumer<List<Long>> onAdded) {
+        if (batch.isEmpty()) return;
+
+        Set<String> emails = new LinkedHashSet<>();
+        for (Row r : batch) emails.add(r.email().toLowerCase(Locale.ROOT));
+        Map<String, Object[]> byEmail = new HashMap<>();
+        for (Object[] u : users.findByEmails(SqlArrays.texts(emails))) {
+            byEmail.put(((String) u[1]).toLowerCase(Locale.ROOT), u);
+        }
+
+        List<Long> candidates = new ArrayList<>();
+        for (Row r : batch) {
+            Object[] u = byEmail.get(r.email().toLowerCase(Locale.ROOT));
+            String reason = u == null ? "UNKNOWN_EMAIL" : !"STUDENT".equals(u[2]) ? "NOT_STUDENT" : null;
+            Long uid = u == null ? null : ((Number) u[0]).longValue();
+            if (reason != null || (r.id() != null && !r.id().equals(uid))) {
+                if (r.id() != null) missing.add(r.id());
+                else rejected.add(new Rejected(r.line(), r.email(), reason));
+            } else if (!seen.add(uid)) {
+                duplicates.add(uid);
+            } else {
+                candidates.add(uid);
+            }
+        }
+        if (candidates.isEmpty()) return;
+
+        Set<Long> inserted = new HashSet<>(groupStudents.insertMissing(groupId, SqlArrays.bigints(candidates)));
+        List<Long> fresh = new ArrayList<>(inserted.size());
+        for (Long id : candidates) (inserted.contains(id) ? fresh : duplicates).add(id);
+        added.addAll(fresh);
+        if (!fresh.isEmpty()) onAdded.accept(fresh); // paczka już zapisana – cache unieważniamy od razu
+    }
+
+    // null = nagłówek (pierwsza linia bez '@' i bez liczby)
+    private static Row parse(int no, String line) {
+        String sep = line.indexOf('\t') >= 0 ? "\t" : line.indexOf(';') >= 0 ? ";" : ",";
+        Long id = null;
+        String email = null;
+        for (String f : line.split(sep, -1)) {
+            String v = unquote(f.strip());
+            if (email == null && v.indexOf('@') > 0) {
+                email = v;
+            } else if (id == null && !v.isEmpty() && v.chars().allMatch(Character::isDigit) && v.length() < 19) {
+                id = Long.parseLong(v);
+            }
+        }
+        if (no == 1 && email == null && id == null) return null;
+        return new Row(no, id, email);
+    }
+
+    private static String unquote(String v) {
+        if (v.length() >= 2 && v.startsWith("\"") && v.endsWith("\"")) {
+            return v.substring(1, v.length() - 1).replace("\"\"", "\"").strip();
+        }
+        return v;
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/** 503 z nagłówkiem Retry-After – serwer chwilowo nie przyjmuje więcej zapisów (backpressure). */
+public class ServiceBusyException extends ResponseStatusException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String reason, long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        var h = new HttpHeaders();
+        h.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return h;
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Scalanie jednoczesnych identycznych odczytów („single flight”).
+ *
+ * Pierwsze wywołanie dla klucza wykonuje {@code loader}, a wywołania z tym samym kluczem, które
+ * przyjdą zanim się skończy, czekają na ten sam wynik zamiast iść do bazy – start lekcji, gdy cała
+ * klasa naraz otwiera to samo zadanie, to jedno zapytanie zamiast kilkudziesięciu.
+ * Nic nie jest przechowywane po zakończeniu (od tego jest {@link ContentCache}); wyjątek lidera
+ * dostają wszyscy czekający.
+ *
+ * Wynik jest współdzielony między wątkami – loader ma zwracać obiekty niemutowalne (rekordy, List.of…).
+ * Liczniki per rodzaj klucza (część przed pierwszym ':') – patrz {@code GET /api/stats/single-flight}.
+ */
+@Component
+public class SingleFlight {
+
+    /** Stan liczników dla jednego rodzaju klucza. */
+    public record Stats(long executed, long coalesced, long failed, int inFlight) {}
+
+    private static final class Counters {
+        final LongAdder executed = new LongAdder();
+        final LongAdder coalesced = new LongAdder();
+        final LongAdder failed = new LongAdder();
+    }
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> loader) {
+        Counters c = counters.computeIfAbsent(kind(key), k -> new Counters());
+        var mine = new CompletableFuture<Object>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            c.coalesced.increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException re) throw re;
+                if (ex.getCause() instanceof Error err) throw err;
+                throw ex;
+            }
+        }
+
+        c.executed.increment();
+        try {
+            T value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            c.failed.increment();
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine); // kolejne wywołania liczą już od nowa
+        }
+    }
+
+    public Map<String, Stats> stats() {
+        Map<String, Integer> running = new LinkedHashMap<>();
+        for (String key : inFlight.keySet()) running.merge(kind(key), 1, Integer::sum);
+
+        Map<String, Stats> out = new LinkedHashMap<>();
+        counters.forEach((kind, c) -> out.put(kind, new Stats(
+                c.executed.sum(), c.coalesced.sum(), c.failed.sum(), running.getOrDefault(kind, 0))));
+        return out;
+    }
+
+    private static String kind(String key) {
+        int i = key.indexOf(':');
+        return i < 0 ? key : key.substring(0, i);
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import org.example.api.dto.BulkProvisionRequest;
+import org.example.repo.GroupStudentRepository;
+import org.example.repo.SqlArrays;
+import org.example.repo.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Zakładanie kont uczniów hurtem (zamiast /api/auth/register po jednym).
+ *
+ * Istniejące e-maile – jednym zapytaniem; hasła (BCrypt, celowo wolny) liczone równolegle na własnej,
+ * ograniczonej puli ({@code app.provisioning.parallelism}), żeby nie zająć wspólnej puli ani wątków żądań;
+ * wstawienia paczkami po {@value #BATCH} ({@code unnest}) i opcjonalny zapis do grupy – w jednej transakcji.
+ */
+@Component
+public class StudentProvisioner {
+
+    static final int BATCH = 500;
+    private static final String PASSWORD_CHARS = "abcdefghjkmnpqrstuvwxyzABCDEFGHJKLMNPQRSTUVWXYZ23456789"; // bez 0/O, 1/l/I
+    private static final int PASSWORD_LENGTH = 12;
+
+    /** Wynik dla jednego wiersza żądania; password tylko dla utworzonych kont. */
+    public record Account(String email, String name, String password, String status, Long id) {} // CREATED | EXISTS | DUPLICATE | INVALID | INVALID_PASSWORD
+
+    private final UserRepository users;
+    private final GroupStudentRepository groupStudents;
+    private final PasswordEncoder encoder;
+    private final TransactionTemplate tx;
+    private final Validator validator;
+    private final ForkJoinPool hashing;
+    private final SecureRandom random = new SecureRandom();
+
+    public StudentProvisioner(UserRepository users,
+                              GroupStudentRepository groupStudents,
+                              PasswordEncoder encoder,
+                              TransactionTemplate tx,
+                              Validator validator,
+                              @Value("${app.provisioning.parallelism:0}") int parallelism) {
+        this.users = users;
+        this.groupStudents = groupStudents;
+        this.encoder = encoder;
+        this.tx = tx;
+        this.validator = validator;
+        int n = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.hashing = new ForkJoinPool(n);
+    }
+
+    @PreDestroy
+    void stop() {
+        hashing.shutdownNow();
+    }
+
+    /** Konta w kolejności żądania; groupId != null → nowe konta od razu w grupie (wywołujący sprawdza grupę). */
+    public List<Account> provision(List<BulkProvisionRequest.Student> students, Long groupId) {
+        List<Account> out = new ArrayList<>(students.size());
+        Map<String, Integer> fresh = new LinkedHashMap<>(); // e-mail (małe litery) → pozycja w out
+        for (var s : students) {
+            String email = s == null || s.email() == null ? "" : s.email().strip();
+            if (!validator.validateValue(BulkProvisionRequest.Student.class, "email", email).isEmpty()) {
+                out.add(new Account(email, s == null ? null : s.name(), null, "INVALID", null));
+                continue;
+            }
+            String name = s.name() == null || s.name().isBlank() ? email.substring(0, email.indexOf('@')) : s.name().strip();
+            if (!validator.validateValue(BulkProvisionRequest.Student.class, "password", s.password()).isEmpty()) {
+                out.add(new Account(email, name, null, "INVALID_PASSWORD", null));
+                continue;
+            }
+            String key = email.toLowerCase(Locale.ROOT);
+            if (fresh.containsKey(key)) {
+                out.add(new Account(email, name, null, "DUPLICATE", null));
+                continue;
+            }
+            fresh.put(key, out.size());
+            String password = s.password() == null || s.password().isBlank() ? generatePassword() : s.password();
+            out.add(new Account(email, name, password, null, null));
+        }
+        if (fresh.isEmpty()) return out;
+
+        // już zarejestrowani – jedno zapytanie
+        for (Object[] u : users.findByEmails(SqlArrays.texts(fresh.keySet()))) {
+            int i = fresh.remove(((String) u[1]).toLowerCase(Locale.ROOT));
+            Account a = out.get(i);
+            out.set(i, new Account(a.email(), a.name(), null, "EXISTS", ((Number) u[0]).longValue()));
+        }
+        if (fresh.isEmpty()) return out;
+
+        // BCrypt równolegle na ograniczonej puli (parallelStream w zadaniu puli zostaje w tej puli)
+        List<Integer> todo = List.copyOf(fresh.values());
+        List<String> hashes = hashing.submit(() -> todo.parallelStream()
+                .map(i -> encoder.encode(out.get(i).password()))
+                .toList()).join();
+
+        tx.executeWithoutResult(st -> {
+            List<Long> created = new ArrayList<>(todo.size());
+            for (int from = 0; from < todo.size(); from += BATCH) {
+                int to = Math.min(from + BATCH, todo.size());
+                List<String> emails = new ArrayList<>(), names = new ArrayList<>();
+                for (int i : todo.subList(from, to)) {
+                    emails.add(out.get(i).email());
+                    names.add(out.get(i).name());
+                }
+                for (Object[] r : users.insertStudents(SqlArrays.texts(emails),
+                        SqlArrays.texts(hashes.subList(from, to)), SqlArrays.texts(names))) {
+                    int i = fresh.get(((String) r[1]).toLowerCase(Locale.ROOT));
+                    Account a = out.get(i);
+                    long id = ((Number) r[0]).longValue();
+                    out.set(i, new Account(a.email(), a.name(), a.password(), "CREATED", id));
+                    created.add(id);
+                }
+            }
+            if (groupId != null && !created.isEmpty()) {
+                for (int from = 0; from < created.size(); from += BATCH) {
+                    groupStudents.insertMissing(groupId,
+                            SqlArrays.bigints(created.subList(from, Math.min(from + BATCH, created.size()))));
+                }
+            }
+        });
+
+        // konto założone w międzyczasie przez kogoś innego (ON CONFLICT) – jak istniejące
+        for (int i : todo) {
+            Account a = out.get(i);
+            if (a.status() == null) out.set(i, new Account(a.email(), a.name(), null, "EXISTS", null));
+        }
+        return out;
+    }
+
+    private String generatePassword() {
+        var sb = new StringBuilder(PASSWORD_LENGTH);
+        for (int i = 0; i < PASSWORD_LENGTH; i++) sb.append(PASSWORD_CHARS.charAt(random.nextInt(PASSWORD_CHARS.length())));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.service;
+
+import org.example.model.Submission;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kanał SSE ze zmianami statusów zgłoszeń – per nauczyciel (właściciel zadania).
+ *
+ * Każde połączenie ma własną kolejkę i własny wirtualny wątek, który ją opróżnia do klienta,
+ * więc publish() tylko wrzuca zdarzenie do kolejek i nigdy nie czeka na wolnego klienta.
+ * Zdarzenia z transakcji wychodzą dopiero po commit.
+ */
+@Component
+public class SubmissionEvents {
+
+    public record Event(Long submissionId, Long assignmentId, Long studentId, String status, String at) {
+        public static Event of(Submission s) {
+            return new Event(s.getId(), s.getAssignment().getId(), s.getStudent().getId(),
+                    s.getStatus() == null ? null : s.getStatus().name(), OffsetDateTime.now().toString());
+        }
+    }
+
+    private static final long TIMEOUT_MS = 30 * 60 * 1000L;  // potem klient łączy się ponownie
+    private static final long HEARTBEAT_SECONDS = 25;        // komentarz „ping”, żeby proxy nie zrywały połączenia
+    private static final int QUEUE_CAPACITY = 256;
+
+    private final Map<Long, Set<Subscriber>> byTeacher = new ConcurrentHashMap<>();
+
+    public SseEmitter subscribe(Long teacherId) {
+        var emitter = new SseEmitter(TIMEOUT_MS);
+        var sub = new Subscriber(teacherId, emitter);
+        byTeacher.computeIfAbsent(teacherId, k -> ConcurrentHashMap.newKeySet()).add(sub);
+
+        emitter.onCompletion(sub::close);
+        emitter.onTimeout(sub::close);
+        emitter.onError(ex -> sub.close());
+        sub.thread = Thread.ofVirtual().name("sse-teacher-" + teacherId).start(sub::run);
+        return emitter;
+    }
+
+    public void publish(Submission s) {
+        var teacher = s.getAssignment().getTeacher();
+        publish(teacher == null ? null : teacher.getId(), Event.of(s));
+    }
+
+    public void publish(Long teacherId, Event event) {
+        if (teacherId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    fanOut(teacherId, event);
+                }
+            });
+        } else {
+            fanOut(teacherId, event);
+        }
+    }
+
+    private void fanOut(Long teacherId, Event event) {
+        var subs = byTeacher.get(teacherId);
+        if (subs == null) return;
+        for (var sub : subs) {
+            if (!sub.queue.offer(event)) {
+                sub.emitter.complete(); // klient nie nadąża – rozłączamy, po ponownym połączeniu pobierze stan od nowa
+            }
+        }
+    }
+
+    private final class Subscriber {
+        final Long teacherId;
+        final SseEmitter emitter;
+        final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        volatile boolean open = true;
+        volatile Thread thread;
+
+        Subscriber(Long teacherId, SseEmitter emitter) {
+            this.teacherId = teacherId;
+            this.emitter = emitter;
+        }
+
+        void run() {
+            try {
+                emitter.send(SseEmitter.event().comment("connected"));
+                while (open) {
+                    Event e = queue.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                    if (e == null) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .name("submission")
+                                .id(String.valueOf(e.submissionId()))
+                                .data(e));
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException ex) {
+                emitter.complete(); // klient się rozłączył
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            if (!open) return;
+            open = false;
+            byTeacher.computeIfPresent(teacherId, (k, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            var t = thread;
+            if (t != null && t != Thread.currentThread()) t.interrupt();
+        }
+    }
+}
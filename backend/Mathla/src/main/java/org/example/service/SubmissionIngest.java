@@ -0,0 +1,312 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.model.Assignment;
+import org.example.model.Submission;
+import org.example.model.SubmissionStatus;
+import org.example.model.User;
+import org.example.repo.AssignmentRepository;
+import org.example.repo.AssignmentStudentRepository;
+import org.example.repo.SqlArrays;
+import org.example.repo.SubmissionRepository;
+import org.example.repo.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Bufor zapisów uczniów na czas „szczytu przed terminem” (POST /start, PUT /{id} ucznia).
+ *
+ * Żądanie trafia do ograniczonej kolejki i czeka na potwierdzenie; jeden wątek zapisujący zbiera
+ * wszystko, co się w międzyczasie nazbierało (do {@code maxBatch}, z krótkim {@code lingerMillis}),
+ * i wykonuje paczkę w JEDNEJ transakcji: walidacje i odczyty zbiorczo (przydziały, terminy, istniejące prace),
+ * potem zapisy i jeden commit (group commit). Przyszłości kończą się dopiero po commit, więc odpowiedź
+ * HTTP oznacza trwały zapis. Pełna kolejka → 503 + Retry-After (backpressure), zamiast kolejnych
+ * transakcji czekających na pulę połączeń.
+ *
+ * Na paczkę przypada co najwyżej jedna edycja danej pracy ({@code @Version} rośnie raz na flush) – kolejne
+ * edycje tej samej pracy przechodzą do następnej paczki, więc każdy udany zapis dostaje własną wersję.
+ *
+ * Błąd walidacji pojedynczej pozycji nie psuje paczki. Błąd całej transakcji (np. konflikt wersji przy flush)
+ * → każda pozycja jest ponawiana osobno, żeby winna dostała swój błąd, a reszta się zapisała.
+ */
+@Component
+public class SubmissionIngest {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionIngest.class);
+
+    /** START: zwraca istniejący zapis ucznia albo tworzy DRAFT. */
+    public record Start(Long assignmentId, Long studentId, String textAnswer) implements Op {}
+
+    /** Zapis ucznia: tekst i/lub status, opcjonalnie z oczekiwaną wersją. */
+    public record Edit(Long submissionId, Long version, String textAnswer, SubmissionStatus status) implements Op {}
+
+    public sealed interface Op permits Start, Edit {}
+
+    /** Wynik zastosowania operacji (w transakcji, po flush – wersja jest już aktualna). */
+    public record Applied(Submission submission, boolean created) {}
+
+    private record Pending(Op op, Function<Applied, ?> view, CompletableFuture<Object> done) {}
+
+    private final SubmissionRepository submissionRepo;
+    private final AssignmentRepository assignmentRepo;
+    private final UserRepository userRepo;
+    private final AssignmentStudentRepository assignRepo;
+    private final DueDateResolver dueDates;
+    private final RevisionLog revisions;
+    private final SubmissionEvents events;
+    private final TransactionTemplate tx;
+
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long lingerMillis;
+    private final long ackTimeoutMillis;
+    private final long retryAfterSeconds;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public SubmissionIngest(SubmissionRepository submissionRepo,
+                            AssignmentRepository assignmentRepo,
+                            UserRepository userRepo,
+                            AssignmentStudentRepository assignRepo,
+                            DueDateResolver dueDates,
+                            RevisionLog revisions,
+                            SubmissionEvents events,
+                            TransactionTemplate tx,
+                            @Value("${app.ingest.capacity:2000}") int capacity,
+                            @Value("${app.ingest.maxBatch:200}") int maxBatch,
+                            @Value("${app.ingest.lingerMillis:2}") long lingerMillis,
+                            @Value("${app.ingest.ackTimeoutMillis:10000}") long ackTimeoutMillis,
+                            @Value("${app.ingest.retryAfterSeconds:2}") long retryAfterSeconds) {
+        this.submissionRepo = submissionRepo;
+        this.assignmentRepo = assignmentRepo;
+        this.userRepo = userRepo;
+        this.assignRepo = assignRepo;
+        this.dueDates = dueDates;
+        this.revisions = revisions;
+        this.events = events;
+        this.tx = tx;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.lingerMillis = lingerMillis;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.writer = Thread.ofPlatform().name("submission-ingest").daemon().start(this::run);
+    }
+
+    /**
+     * Wstawia operację do kolejki i czeka na jej commit. {@code view} liczy odpowiedź wewnątrz transakcji
+     * (encje są jeszcze zarządzane). Pełna kolejka / brak potwierdzenia w czasie → 503 + Retry-After.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R apply(Op op, Function<Applied, R> view) {
+        var p = new Pending(op, view, new CompletableFuture<>());
+        if (!running || !queue.offer(p)) {
+            throw new ServiceBusyException("INGEST_BUSY", retryAfterSeconds);
+        }
+        try {
+            return (R) p.done().get(ackTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            // zapis mógł jeszcze dojść do skutku – ponowienie START zwróci istniejącą pracę, PUT z wersją dostanie 409
+            throw new ServiceBusyException("INGEST_TIMEOUT", retryAfterSeconds);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("INGEST_INTERRUPTED", retryAfterSeconds);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(ackTimeoutMillis); // wątek opróżnia kolejkę do końca
+    }
+
+    /* ====== WĄTEK ZAPISUJĄCY ====== */
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        List<Pending> deferred = new ArrayList<>(); // kolejne edycje tej samej pracy – idą na początek następnej paczki
+        while (running || !queue.isEmpty() || !deferred.isEmpty()) {
+            try {
+                if (deferred.isEmpty()) {
+                    Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                } else {
+                    batch.addAll(deferred);
+                    deferred.clear();
+                }
+                queue.drainTo(batch, maxBatch - batch.size());
+                if (batch.size() < maxBatch && lingerMillis > 0) {
+                    // krótka chwila na dołączenie kolejnych zapisów do tego samego commit
+                    Pending more = queue.poll(lingerMillis, TimeUnit.MILLISECONDS);
+                    if (more != null) {
+                        batch.add(more);
+                        queue.drainTo(batch, maxBatch - batch.size());
+                    }
+                }
+                deferRepeatedEdits(batch, deferred);
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Ingest: nieoczekiwany błąd paczki", ex);
+                for (var p : batch) p.done().completeExceptionally(ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // zostawia w paczce pierwszą edycję każdej pracy, pozostałe (w kolejności nadejścia) przenosi do deferred
+    private static void deferRepeatedEdits(List<Pending> batch, List<Pending> deferred) {
+        Set<Long> seen = new HashSet<>();
+        batch.removeIf(p -> {
+            if (!(p.op() instanceof Edit e) || e.submissionId() == null || seen.add(e.submissionId())) return false;
+            deferred.add(p);
+            return true;
+        });
+    }
+
+    private void flush(List<Pending> batch) {
+        Map<Pending, Object> results;
+        try {
+            results = tx.execute(st -> applyAll(batch));
+        } catch (RuntimeException ex) {
+            if (batch.size() == 1) {
+                batch.get(0).done().completeExceptionally(ex);
+                return;
+            }
+            log.warn("Ingest: paczka {} zapisów wycofana ({}), ponawiam pojedynczo", batch.size(), ex.toString());
+            for (var p : batch) flush(List.of(p));
+            return;
+        }
+        // po commit – dopiero teraz potwierdzamy
+        for (var p : batch) {
+            Object r = results.get(p);
+            if (r instanceof ResponseStatusException rse) p.done().completeExceptionally(rse);
+            else p.done().complete(r);
+        }
+    }
+
+    /** Cała paczka w jednej transakcji. Wynik: widok odpowiedzi albo ResponseStatusException per pozycja. */
+    private Map<Pending, Object> applyAll(List<Pending> batch) {
+        Map<Pending, Object> out = new IdentityHashMap<>();
+        Map<Pending, Applied> applied = new IdentityHashMap<>();
+
+        var starts = batch.stream().filter(p -> p.op() instanceof Start).toList();
+        var edits = batch.stream().filter(p -> p.op() instanceof Edit).toList();
+        if (!starts.isEmpty()) applyStarts(starts, applied, out);
+        if (!edits.isEmpty()) applyEdits(edits, applied, out);
+
+        submissionRepo.flush(); // wersje/identyfikatory gotowe, zanim policzymy odpowiedzi
+        applied.forEach((p, a) -> out.put(p, p.view().apply(a)));
+        return out;
+    }
+
+    private void applyStarts(List<Pending> starts, Map<Pending, Applied> applied, Map<Pending, Object> out) {
+        Set<Long> aids = new HashSet<>(), sids = new HashSet<>();
+        for (var p : starts) {
+            var op = (Start) p.op();
+            if (op.assignmentId() != null) aids.add(op.assignmentId());
+            if (op.studentId() != null) sids.add(op.studentId());
+        }
+        Map<Long, Assignment> assignments = new HashMap<>();
+        for (var a : assignmentRepo.findAllById(aids)) assignments.put(a.getId(), a);
+        Map<Long, User> users = new HashMap<>();
+        for (var u : userRepo.findAllById(sids)) users.put(u.getId(), u);
+
+        Set<DueDateResolver.Key> linked = new HashSet<>();
+        for (Object[] r : assignRepo.findPairs(SqlArrays.bigints(aids), SqlArrays.bigints(sids))) {
+            linked.add(new DueDateResolver.Key(((Number) r[0]).longValue(), ((Number) r[1]).longValue()));
+        }
+        var dues = dueDates.resolveAll(linked);
+
+        Map<DueDateResolver.Key, Submission> existing = new HashMap<>();
+        for (var s : submissionRepo.findByAssignment_IdInAndStudent_IdIn(aids, sids)) {
+            existing.merge(new DueDateResolver.Key(s.getAssignment().getId(), s.getStudent().getId()), s,
+                    (x, y) -> x.getId() > y.getId() ? x : y); // najnowsza praca pary
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        for (var p : starts) {
+            var op = (Start) p.op();
+            var key = new DueDateResolver.Key(op.assignmentId(), op.studentId());
+            Assignment a = assignments.get(op.assignmentId());
+            User u = users.get(op.studentId());
+            if (a == null || u == null) {
+                out.put(p, new ResponseStatusException(HttpStatus.NOT_FOUND, "NOT_FOUND"));
+            } else if (!linked.contains(key)) {
+                out.put(p, new ResponseStatusException(HttpStatus.FORBIDDEN, "NOT_ASSIGNED"));
+            } else if (dues.get(key) != null && now.isAfter(dues.get(key))) {
+                out.put(p, new ResponseStatusException(HttpStatus.FORBIDDEN, "DEADLINE_PASSED"));
+            } else if (existing.containsKey(key)) {
+                applied.put(p, new Applied(existing.get(key), false));
+            } else {
+                var s = new Submission();
+                s.setAssignment(a);
+                s.setStudent(u);
+                s.setTextAnswer(op.textAnswer());
+                s.setStatus(SubmissionStatus.DRAFT);
+                s.setCreatedAt(now);
+                submissionRepo.save(s);
+                revisions.recordEdit(s.getId(), null, s.getTextAnswer(), RevisionLog.CREATE);
+                events.publish(s);
+                existing.put(key, s); // drugi START tej samej pary w paczce dostanie tę samą pracę
+                applied.put(p, new Applied(s, true));
+            }
+        }
+    }
+
+    private void applyEdits(List<Pending> edits, Map<Pending, Applied> applied, Map<Pending, Object> out) {
+        var ids = edits.stream().map(p -> ((Edit) p.op()).submissionId()).filter(Objects::nonNull).distinct().toList();
+        Map<Long, Submission> byId = new HashMap<>();
+        for (var s : submissionRepo.findByIdIn(ids)) byId.put(s.getId(), s);
+
+        var dues = dueDates.resolveAll(byId.values().stream()
+                .map(s -> new DueDateResolver.Key(s.getAssignment().getId(), s.getStudent().getId()))
+                .toList());
+
+        Map<Submission, String> textsBefore = new LinkedHashMap<>();
+        OffsetDateTime now = OffsetDateTime.now();
+        for (var p : edits) {
+            var op = (Edit) p.op();
+            Submission s = op.submissionId() == null ? null : byId.get(op.submissionId());
+            if (s == null) {
+                out.put(p, new ResponseStatusException(HttpStatus.NOT_FOUND, "NOT_FOUND"));
+                continue;
+            }
+            // jedna edycja pracy na paczkę (deferRepeatedEdits) – wersja w pamięci to wersja zapisana w bazie
+            Long current = s.getVersion();
+            OffsetDateTime due = dues.get(new DueDateResolver.Key(s.getAssignment().getId(), s.getStudent().getId()));
+            if (op.version() != null && !op.version().equals(current)) {
+                out.put(p, new ResponseStatusException(HttpStatus.CONFLICT, "STALE_VERSION"));
+            } else if (due != null && now.isAfter(due)) {
+                out.put(p, new ResponseStatusException(HttpStatus.FORBIDDEN, "DEADLINE_PASSED"));
+            } else {
+                var statusBefore = s.getStatus();
+                textsBefore.putIfAbsent(s, s.getTextAnswer());
+                if (op.textAnswer() != null) s.setTextAnswer(op.textAnswer());
+                if (op.status() != null) s.setStatus(op.status());
+                if (s.getStatus() != statusBefore) events.publish(s);
+                applied.put(p, new Applied(s, false));
+            }
+        }
+        // najpierw wszystkie UPDATE-y jednym flush (paczkami, hibernate.jdbc.batch_size), dopiero potem dziennik zmian
+        submissionRepo.flush();
+        textsBefore.forEach((s, before) -> revisions.recordEdit(s.getId(), before, s.getTextAnswer(), RevisionLog.EDIT));
+    }
+}
@@ -0,0 +1,5 @@
+-- V009__submissions_draft_index.sql
+-- DeadlineSweeper przegląda wyłącznie DRAFT-y – indeks częściowy trzyma ten zbiór mały.
+CREATE INDEX IF NOT EXISTS idx_submissions_draft
+  ON submissions (assignment_id, student_id)
+  WHERE status = 'DRAFT';
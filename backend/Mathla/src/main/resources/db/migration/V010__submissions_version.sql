@@ -0,0 +1,4 @@
+-- V010__submissions_version.sql
+-- Wersja wiersza zgłoszenia: optymistyczna kontrola zapisów i baza dla łatek autosave.
+ALTER TABLE submissions
+  ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
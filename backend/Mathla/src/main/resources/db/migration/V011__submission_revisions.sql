@@ -0,0 +1,15 @@
+-- V011__submission_revisions.sql
+-- Dziennik zmian odpowiedzi: co jakiś czas pełny SNAPSHOT, pomiędzy nimi DELTA
+-- (splice: od pozycji pos usuń del_len znaków, wstaw body). Pozycje w znakach (jak char_length/overlay).
+CREATE TABLE IF NOT EXISTS submission_revisions (
+  id            BIGSERIAL PRIMARY KEY,
+  submission_id BIGINT      NOT NULL REFERENCES submissions(id) ON DELETE CASCADE,
+  rev_no        INT         NOT NULL,
+  kind          VARCHAR(8)  NOT NULL CHECK (kind IN ('SNAPSHOT','DELTA')),
+  pos           INT         NOT NULL DEFAULT 0,
+  del_len       INT         NOT NULL DEFAULT 0,
+  body          TEXT        NOT NULL DEFAULT '',
+  reason        VARCHAR(16) NOT NULL,
+  created_at    TIMESTAMPTZ NOT NULL DEFAULT now(),
+  CONSTRAINT uq_submission_revisions UNIQUE (submission_id, rev_no)
+);
@@ -0,0 +1,13 @@
+-- V012__idempotency_keys.sql
+-- Zapamiętane odpowiedzi dla nagłówka Idempotency-Key (kopia trwała pamięci podręcznej w aplikacji).
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+  scope_key    VARCHAR(400) PRIMARY KEY,      -- użytkownik + metoda + ścieżka + klucz klienta
+  fingerprint  VARCHAR(64)  NOT NULL,         -- SHA-256 treści żądania
+  status       INT          NOT NULL,
+  location     TEXT,
+  body         TEXT         NOT NULL,
+  created_at   TIMESTAMPTZ  NOT NULL DEFAULT now(),
+  expires_at   TIMESTAMPTZ  NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires ON idempotency_keys(expires_at);
@@ -0,0 +1,4 @@
+-- V013__assignment_students_due_at.sql
+-- Termin per-uczeń był dotąd dodawany tylko przez Hibernate (ddl-auto) – zapytania natywne na nim polegają.
+ALTER TABLE assignment_students
+  ADD COLUMN IF NOT EXISTS due_at TIMESTAMPTZ;
@@ -0,0 +1,18 @@
+-- V014__assignment_groups.sql
+-- Zadanie przydzielone całej grupie: członkowie rozwiązywani w zapytaniu przez group_students,
+-- bez wiersza assignment_students per uczeń (ten zostaje tylko dla indywidualnego przydziału / terminu).
+-- groups/group_students zakłada Hibernate (ddl-auto), stąd brak FK do groups tutaj – dokłada go ddl-auto,
+-- a kasowanie grupy sprząta przydziały w GroupController.
+-- due_at: termin przydziału grupowego (obejmuje także przyszłych członków); termin efektywny ucznia:
+-- COALESCE(assignment_students.due_at, najpóźniejszy assignment_groups.due_at jego grup, assignments.due_at).
+CREATE TABLE IF NOT EXISTS assignment_groups (
+  id            BIGSERIAL PRIMARY KEY,
+  assignment_id BIGINT      NOT NULL REFERENCES assignments(id) ON DELETE CASCADE,
+  group_id      BIGINT      NOT NULL,
+  due_at        TIMESTAMPTZ,
+  created_at    TIMESTAMPTZ NOT NULL DEFAULT now(),
+  CONSTRAINT uq_assignment_groups UNIQUE (assignment_id, group_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_assignment_groups_group ON assignment_groups(group_id);
+CREATE INDEX IF NOT EXISTS idx_assignment_groups_due ON assignment_groups(due_at) WHERE due_at IS NOT NULL;
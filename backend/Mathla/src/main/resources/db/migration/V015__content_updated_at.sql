@@ -0,0 +1,4 @@
+-- V015__content_updated_at.sql
+-- Znaczniki zmian treści – źródło ETag / Last-Modified dla zadań i problemów.
+ALTER TABLE assignments ADD COLUMN IF NOT EXISTS updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE problems    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
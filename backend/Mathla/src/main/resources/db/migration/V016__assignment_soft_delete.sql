@@ -0,0 +1,25 @@
+-- V016__assignment_soft_delete.sql
+-- Usuwanie zadania w dwóch krokach: DELETE tylko oznacza (deleted_at, od razu znika z odczytów),
+-- a AssignmentPurger kasuje formuły, rewizje, zgłoszenia, przydziały i problemy paczkami.
+-- assignment_purges – postęp (liczniki usuniętych wierszy) i wznowienie po restarcie; bez FK,
+-- bo wpis zostaje po usunięciu samego zadania.
+ALTER TABLE assignments ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMPTZ;
+
+CREATE TABLE IF NOT EXISTS assignment_purges (
+  assignment_id BIGINT      PRIMARY KEY,
+  requested_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
+  finished_at   TIMESTAMPTZ,
+  formulas      BIGINT      NOT NULL DEFAULT 0,
+  revisions     BIGINT      NOT NULL DEFAULT 0,
+  submissions   BIGINT      NOT NULL DEFAULT 0,
+  links         BIGINT      NOT NULL DEFAULT 0,
+  problems      BIGINT      NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_assignment_purges_open ON assignment_purges(requested_at) WHERE finished_at IS NULL;
+
+-- paczki wybierane po zadaniu / zgłoszeniu / problemie (także kaskady FK)
+CREATE INDEX IF NOT EXISTS idx_submissions_assignment ON submissions(assignment_id);
+CREATE INDEX IF NOT EXISTS idx_problems_assignment    ON problems(assignment_id);
+CREATE INDEX IF NOT EXISTS idx_formulas_submission    ON formulas(submission_id);
+CREATE INDEX IF NOT EXISTS idx_formulas_problem       ON formulas(problem_id);
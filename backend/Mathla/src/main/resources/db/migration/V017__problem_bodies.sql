@@ -0,0 +1,27 @@
+-- V017__problem_bodies.sql
+-- Treść problemu przechowywana raz, adresowana skrótem: hash = sha256(treść w UTF-8) jako hex.
+-- problems.body_hash wskazuje na wspólną treść – ta sama treść w wielu zadaniach to jeden wiersz.
+-- last_used_at odświeża każde użycie (ProblemBodies.intern) – sprzątanie sierot omija świeże wpisy.
+CREATE TABLE IF NOT EXISTS problem_bodies (
+  hash         VARCHAR(64) PRIMARY KEY,
+  content      TEXT        NOT NULL,
+  created_at   TIMESTAMPTZ NOT NULL DEFAULT now(),
+  last_used_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+ALTER TABLE problems ADD COLUMN IF NOT EXISTS body_hash VARCHAR(64) REFERENCES problem_bodies(hash);
+
+-- przeniesienie istniejących treści (duplikaty zlewają się w jeden wiersz)
+INSERT INTO problem_bodies (hash, content)
+SELECT DISTINCT encode(sha256(convert_to(p.content, 'UTF8')), 'hex'), p.content
+  FROM problems p
+ WHERE p.content IS NOT NULL
+ON CONFLICT (hash) DO NOTHING;
+
+UPDATE problems
+   SET body_hash = encode(sha256(convert_to(content, 'UTF8')), 'hex')
+ WHERE content IS NOT NULL AND body_hash IS NULL;
+
+ALTER TABLE problems DROP COLUMN IF EXISTS content;
+
+CREATE INDEX IF NOT EXISTS idx_problems_body_hash ON problems(body_hash);
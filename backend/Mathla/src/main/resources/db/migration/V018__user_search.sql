@@ -0,0 +1,13 @@
+-- V018__user_search.sql
+-- Wyszukiwanie użytkowników (GET /api/users?q=) po fragmencie imienia / e-maila: indeksy trigramowe
+-- obsługują LIKE '%fraza%' i podobieństwo (%) bez przeglądania całej tabeli.
+-- Wyrażenia muszą być identyczne jak w UserRepository.search.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm  ON users USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(CAST(email AS text)) gin_trgm_ops);
+
+-- Krótkie frazy (1–2 znaki – bez użytecznych trigramów) szukają tylko po początku: btree w porządku "C"
+-- obsługuje LIKE 'fraza%' i zwraca wiersze już posortowane, więc LIMIT kończy odczyt (UserRepository.searchPrefix).
+CREATE INDEX IF NOT EXISTS idx_users_name_prefix  ON users ((lower(name) COLLATE "C"));
+CREATE INDEX IF NOT EXISTS idx_users_email_prefix ON users ((lower(CAST(email AS text)) COLLATE "C"));
@@ -1,5 +1,5 @@
 // src/pages/StudentHome.jsx
-import { useEffect, useMemo, useState } from "react";
+import { useEffect, useState } from "react";
 import { Link } from "react-router-dom";
 import { apiGet } from "../api";
 import StudentNav from "../components/StudentNav";
@@ -7,36 +7,23 @@ import { makeT } from "../i18n";
 const t = makeT('StudentHome');
 const APP_NAME = 'MathLab';
 
-/* helpers */
-const effectiveDue = (a) => a?.studentDueAt || a?.dueAt || null;
-const isValidDate = (v) => {
-  const d = v instanceof Date ? v : v ? new Date(v) : null;
-  return !!d && !isNaN(d.getTime());
-};
-const isPast = (iso) => !!iso && isValidDate(iso) && new Date(iso).getTime() < Date.now();
+const EMPTY_COUNTS = { assigned: 0, todo: 0, overdue: 0, submitted: 0, graded: 0, groups: 0 };
 
 export default function StudentHome({ auth }) {
-  const [assignments, setAssignments] = useState([]);
-  const [subs, setSubs] = useState([]);
-  const [groups, setGroups] = useState([]);
+  const [counts, setCounts] = useState(EMPTY_COUNTS);
   const [msg, setMsg] = useState("");
 
+  // liczniki liczone po stronie serwera – jedno żądanie zamiast trzech
   useEffect(() => {
     let alive = true;
     (async () => {
       try {
-        const [aList, sList, gList] = await Promise.all([
-          apiGet(`/api/assignments/assigned?studentId=${auth.userId}`, auth.token),
-          apiGet(`/api/submissions?studentId=${auth.userId}`, auth.token),
-          apiGet(`/api/groups?studentId=${auth.userId}`, auth.token),
-        ]);
+        const d = await apiGet(`/api/students/${auth.userId}/dashboard`, auth.token);
         if (!alive) return;
-        setAssignments(Array.isArray(aList) ? aList : []);
-        setSubs(Array.isArray(sList) ? sList : []);
-        setGroups(Array.isArray(gList) ? gList : []);
+        setCounts({ ...EMPTY_COUNTS, ...(d?.counts || {}) });
       } catch (e) {
         if (!alive) return;
-        setAssignments([]); setSubs([]); setGroups([]);
+        setCounts(EMPTY_COUNTS);
         setMsg("Nie udało się pobrać danych.");
       }
     })();
@@ -50,44 +37,6 @@ export default function StudentHome({ auth }) {
     } catch {}
   }, []);
 
-  // najnowsze zgłoszenie per zadanie (po id)
-  const latestSubByA = useMemo(() => {
-    const map = {};
-    for (const s of subs) {
-      const k = String(s.assignmentId);
-      if (!map[k] || (s.id ?? 0) > (map[k].id ?? 0)) map[k] = s;
-    }
-    return map;
-  }, [subs]);
-
-  // status per assignment
-  function statusFor(a) {
-    const s = latestSubByA[String(a.id)];
-    const due = effectiveDue(a);
-    if (s?.status === "GRADED") return "GRADED";
-    if (s?.status === "SUBMITTED") return "SUBMITTED";
-    if (due && isPast(due)) return "OVERDUE";
-    if (s) return "DRAFT";
-    return "NOT_STARTED";
-  }
-
-  // liczniki do badge
-  const counts = useMemo(() => {
-    let todo = 0, overdue = 0, submitted = 0, graded = 0;
-    for (const a of assignments) {
-      const st = statusFor(a);
-      if (st === "NOT_STARTED" || st === "DRAFT") todo++;
-      if (st === "OVERDUE") overdue++;
-      if (st === "SUBMITTED") submitted++;
-      if (st === "GRADED") graded++;
-    }
-    return {
-      assigned: assignments.length,
-      todo, overdue, submitted, graded,
-      groups: groups.length,
-    };
-  }, [assignments, groups, latestSubByA]);
-
   return (
     <div className="relative min-h-[100svh] overflow-x-hidden">
       {/* tło */}
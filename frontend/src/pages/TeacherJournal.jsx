@@ -80,39 +80,39 @@ export default function TeacherJournal({ auth }) {
     setMsg("");
 
     try {
-      const myAssignments = await apiGet(`/api/assignments?teacherId=${auth.userId}`, auth.token);
-      const myAssignmentIds = new Set((myAssignments || []).map(a => String(a.id)));
+      // jedna macierz uczniowie × zadania (tylko moje zadania) zamiast 2 żądań na ucznia
+      const gb = await apiGet(`/api/groups/${groupId}/gradebook?teacherId=${auth.userId}`, auth.token);
+      const col = Object.fromEntries((gb?.cellColumns || []).map((c, i) => [c, i]));
+      const gradedIdx = (gb?.statuses || []).indexOf("GRADED");
+      const sIdx = new Map((gb?.students?.id || []).map((id, i) => [String(id), i]));
+
+      const cellsByStudent = new Map();
+      for (const c of gb?.cells || []) {
+        const k = c[col.student];
+        if (!cellsByStudent.has(k)) cellsByStudent.set(k, []);
+        cellsByStudent.get(k).push(c);
+      }
 
       const out = [];
 
       for (const u of members) {
-        // surowe dane ucznia (z fallbackiem bez teacherId)
-        const [assignedRaw, subsRaw] = await Promise.all([
-          apiGet(`/api/assignments/assigned?studentId=${u.id}&teacherId=${auth.userId}`, auth.token)
-            .catch(() => apiGet(`/api/assignments/assigned?studentId=${u.id}`, auth.token)),
-          apiGet(`/api/submissions?studentId=${u.id}&teacherId=${auth.userId}`, auth.token)
-            .catch(() => apiGet(`/api/submissions?studentId=${u.id}`, auth.token)),
-        ]);
-
-        // tylko moje zadania
-        const assignedMine = (assignedRaw || []).filter(a => myAssignmentIds.has(String(a.id)));
-        const subsMine = (subsRaw || []).filter(s => myAssignmentIds.has(String(s.assignmentId)));
+        const cells = cellsByStudent.get(sIdx.get(String(u.id))) || [];
 
         // metryki
-        const totalAssigned = assignedMine.length;
-        const doneAny = new Set(subsMine.map(s => s.assignmentId)).size;
+        const totalAssigned = cells.length;
+        const doneAny = cells.filter(c => c[col.lastAt] != null).length;
 
-        const gradedSubs = subsMine
-          .filter(s => s.status === "GRADED")
+        const gradedCells = cells
+          .filter(c => c[col.status] === gradedIdx)
           .slice()
-          .sort((a, b) => new Date(a.createdAt || 0) - new Date(b.createdAt || 0));
+          .sort((a, b) => new Date(a[col.lastAt] || 0) - new Date(b[col.lastAt] || 0));
 
-        const graded = gradedSubs.length;
-        const gradesList = gradedSubs.map(s => (s.score == null ? "" : String(s.score))).filter(Boolean);
+        const graded = cells.reduce((acc, c) => acc + (c[col.graded] || 0), 0);
+        const gradesList = gradedCells.map(c => (c[col.score] == null ? "" : String(c[col.score]))).filter(Boolean);
         const gradesText = gradesList.join(", ");
 
-        const gradedNumeric = gradedSubs
-          .map(s => numericFromScore(s.score))
+        const gradedNumeric = gradedCells
+          .map(c => numericFromScore(c[col.score]))
           .filter(v => v != null);
 
         const avg = gradedNumeric.length
@@ -120,8 +120,8 @@ export default function TeacherJournal({ auth }) {
           : null;
 
         const last =
-          subsMine
-            .map(s => (s.createdAt ? new Date(s.createdAt) : null))
+          cells
+            .map(c => (c[col.lastAt] ? new Date(c[col.lastAt]) : null))
             .filter(Boolean)
             .sort((a, b) => b - a)[0] || null;
 